@@ -0,0 +1,154 @@
+package com.ksu1012.factory.benchmarks;
+
+import com.ksu1012.factory.*;
+
+/**
+ * Synthetic worlds for the benchmarks, built directly on flat dirt maps.
+ * <p>
+ * Every item layout ends in a {@link Core} column along the east edge, so items keep flowing instead of jamming:
+ * <ul>
+ *   <li><b>Belts:</b> Rows of one drill feeding a conveyor of the given length.</li>
+ *   <li><b>Drills:</b> Rows of drills pushing sideways onto a shared collector belt.</li>
+ *   <li><b>Smelters:</b> Copper and coal drills feeding a smelter, whose output belt runs to the sink.</li>
+ *   <li><b>Power:</b> A square grid of poles with batteries and coal generators.</li>
+ * </ul>
+ * Sizes are approximate building counts (the number of poles for the power grid).
+ */
+
+public final class BenchmarkWorlds {
+    public enum Layout { BELTS, DRILLS, SMELTERS, POWER }
+
+    private static final int BELT_ROWS = 64;
+    private static final int DRILL_ROW_LENGTH = 128;
+    private static final int SMELTER_LINE_LENGTH = 32;
+    private static final int POLE_SPACING = 4; // Within a pole's connection radius
+
+    private BenchmarkWorlds() {
+    }
+
+    public static Simulation build(Layout layout, int size) {
+        switch (layout) {
+            case BELTS: return belts(Math.max(1, size / BELT_ROWS));
+            case DRILLS: return drills(Math.max(1, size / (DRILL_ROW_LENGTH * 2)));
+            case SMELTERS: return smelters(Math.max(1, size / (SMELTER_LINE_LENGTH + 3)));
+            case POWER: return powerGrid(Math.max(1, (int) Math.sqrt(size)));
+            default: throw new IllegalArgumentException("Unknown layout: " + layout);
+        }
+    }
+
+    // BELT_ROWS rows of drill -> conveyor of the given length -> sink
+    public static Simulation belts(int length) {
+        int width = length + 2;
+        Simulation sim = new Simulation(flatMap(width, BELT_ROWS));
+
+        for (int y = 0; y < BELT_ROWS; y++) {
+            ore(sim, 0, y, ResourceType.COPPER_ORE);
+            place(sim, BuildingType.BASIC_DRILL, 0, y, Direction.EAST);
+            for (int x = 1; x <= length; x++) {
+                place(sim, BuildingType.FAST_CONVEYOR, x, y, Direction.EAST);
+            }
+        }
+        addSink(sim, width - 1, 0, BELT_ROWS);
+        return sim;
+    }
+
+    // Pairs of rows: a row of drills facing north onto a row of conveyors heading east
+    public static Simulation drills(int rows) {
+        int width = DRILL_ROW_LENGTH + 1;
+        int height = rows * 2;
+        Simulation sim = new Simulation(flatMap(width, height));
+
+        for (int r = 0; r < rows; r++) {
+            int y = r * 2;
+            for (int x = 0; x < DRILL_ROW_LENGTH; x++) {
+                ore(sim, x, y, (x % 3 == 0) ? ResourceType.COAL_ORE : ResourceType.IRON_ORE);
+                place(sim, BuildingType.BASIC_DRILL, x, y, Direction.NORTH);
+                place(sim, BuildingType.FAST_CONVEYOR, x, y + 1, Direction.EAST);
+            }
+        }
+        addSink(sim, width - 1, 0, height);
+        return sim;
+    }
+
+    // One smelter per two rows: copper and coal drill -> smelter -> output belt -> sink
+    public static Simulation smelters(int count) {
+        int width = SMELTER_LINE_LENGTH + 4;
+        int height = count * 2;
+        Simulation sim = new Simulation(flatMap(width, height));
+
+        for (int i = 0; i < count; i++) {
+            int y = i * 2;
+            ore(sim, 0, y, ResourceType.COPPER_ORE);
+            ore(sim, 0, y + 1, ResourceType.COAL_ORE);
+            place(sim, BuildingType.BASIC_DRILL, 0, y, Direction.EAST);
+            place(sim, BuildingType.BASIC_DRILL, 0, y + 1, Direction.EAST);
+            place(sim, BuildingType.SMELTER, 1, y, Direction.EAST);
+            for (int x = 3; x < width - 1; x++) {
+                place(sim, BuildingType.BASIC_CONVEYOR, x, y, Direction.EAST);
+            }
+        }
+        addSink(sim, width - 1, 0, height);
+        return sim;
+    }
+
+    // side x side poles, with a half-charged battery and a drill-fed coal generator next to every fourth pole
+    public static Simulation powerGrid(int side) {
+        int size = side * POLE_SPACING;
+        Simulation sim = new Simulation(flatMap(size, size));
+
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int x = i * POLE_SPACING;
+                int y = j * POLE_SPACING;
+                place(sim, BuildingType.POWER_POLE, x, y, Direction.NORTH);
+
+                if ((i + j) % 4 == 0 && x + 3 < size && y + 2 < size) {
+                    Building battery = BuildingType.BATTERY.create(x + 1, y);
+                    battery.currentEnergy = battery.getDefinition().energyCapacity / 2f;
+                    sim.addBuilding(battery);
+
+                    place(sim, BuildingType.COAL_GENERATOR, x + 1, y + 1, Direction.NORTH);
+                    ore(sim, x + 3, y + 1, ResourceType.COAL_ORE);
+                    place(sim, BuildingType.BASIC_DRILL, x + 3, y + 1, Direction.WEST);
+                }
+            }
+        }
+        return sim;
+    }
+
+    // A generated world of the given size with a Core in the middle
+    public static Simulation generated(int size, long seed) {
+        Simulation sim = new Simulation(size, size, seed);
+        sim.spawnCore();
+        return sim;
+    }
+
+    // --- HELPERS ---
+
+    public static Tile[][] flatMap(int width, int height) {
+        Tile[][] map = new Tile[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                map[x][y] = new Tile(x, y);
+            }
+        }
+        return map;
+    }
+
+    // A 1-wide Core column accepting items from every row
+    private static void addSink(Simulation sim, int x, int y, int height) {
+        sim.addBuilding(new Core(x, y, new CoreDef(1, height)));
+    }
+
+    private static void ore(Simulation sim, int x, int y, ResourceType resource) {
+        sim.getMap()[x][y].resource = resource;
+    }
+
+    private static Building place(Simulation sim, BuildingType type, int x, int y, Direction facing) {
+        Building b = sim.placeBuilding(type, x, y, facing);
+        if (b == null) {
+            throw new IllegalStateException("Could not place " + type + " at " + x + ", " + y);
+        }
+        return b;
+    }
+}
@@ -0,0 +1,62 @@
+package com.ksu1012.factory.benchmarks;
+
+import com.ksu1012.factory.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Power grid costs on a square grid of K poles ({@link BenchmarkWorlds#powerGrid(int)}).
+ * <ul>
+ *   <li><b>solve:</b> One {@link PowerSystem#update(float)} step over all networks.</li>
+ *   <li><b>placeAndRemovePole:</b> Adds a pole bridging into the grid and removes it again,
+ *   which is the latency a player sees when editing a large base.</li>
+ *   <li><b>rebuild:</b> Full {@link PowerSystem#rebuildNetworks(java.util.List)} for comparison.</li>
+ * </ul>
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PowerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int poles;
+
+    private Simulation simulation;
+    private PowerSystem powerSystem;
+    private int poleX;
+    private int poleY;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = BenchmarkWorlds.powerGrid((int) Math.sqrt(poles));
+        powerSystem = simulation.getPowerSystem();
+
+        // A free tile in the middle of the grid, between four poles
+        int center = simulation.getWidth() / 2;
+        poleX = center - (center % 4) + 3;
+        poleY = center - (center % 4) + 3;
+
+        if (simulation.getMap()[poleX][poleY].building != null) {
+            throw new IllegalStateException("Pole tile " + poleX + ", " + poleY + " is occupied");
+        }
+    }
+
+    @Benchmark
+    public void solve() {
+        powerSystem.update(Simulation.TICK_DELTA);
+    }
+
+    @Benchmark
+    public Building placeAndRemovePole() {
+        Building pole = simulation.placeBuilding(BuildingType.POWER_POLE, poleX, poleY, Direction.NORTH);
+        simulation.removeBuilding(pole);
+        return pole;
+    }
+
+    @Benchmark
+    public int rebuild() {
+        powerSystem.rebuildNetworks(simulation.getBuildings());
+        return powerSystem.getNetworks().size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ksu1012.factory.benchmarks;
+
+import com.ksu1012.factory.Simulation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one simulation tick on the {@link BenchmarkWorlds} layouts.
+ * <p>
+ * Reports:
+ * <ul>
+ *   <li><b>ticksPerSecond:</b> Tick throughput.</li>
+ *   <li><b>tickTime:</b> Time per tick, plus the {@code buildings} counter, which JMH normalizes to time per
+ *   building update.</li>
+ *   <li><b>Allocation:</b> {@code gc.alloc.rate.norm} from the gc profiler, in bytes per tick (expected to be 0).</li>
+ * </ul>
+ */
+
+@State(Scope.Benchmark)
+public class SimulationTickBenchmark {
+    // Ticks run before measuring, so belts, drills and batteries are in their steady state
+    private static final int SETTLE_TICKS = 3000;
+
+    @Param({"BELTS", "DRILLS", "SMELTERS", "POWER"})
+    public BenchmarkWorlds.Layout layout;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Simulation simulation;
+    private int buildingCount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = BenchmarkWorlds.build(layout, size);
+        simulation.setParallel(parallel);
+        simulation.runTicks(SETTLE_TICKS);
+        buildingCount = simulation.getBuildings().size();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        simulation.dispose();
+    }
+
+    // Counts building updates, so average-time mode also reports time per building
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class BuildingCounter {
+        public long buildings;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            buildings = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void ticksPerSecond() {
+        simulation.tick();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void tickTime(BuildingCounter counter) {
+        simulation.tick();
+        counter.buildings += buildingCount;
+    }
+}
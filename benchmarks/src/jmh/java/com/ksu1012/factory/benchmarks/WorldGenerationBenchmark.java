@@ -0,0 +1,41 @@
+package com.ksu1012.factory.benchmarks;
+
+import com.ksu1012.factory.Simulation;
+import com.ksu1012.factory.Tile;
+import com.ksu1012.factory.WorldGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * World generation time and the tick cost of a freshly generated, mostly empty world.
+ */
+
+@State(Scope.Benchmark)
+public class WorldGenerationBenchmark {
+    private static final long SEED = 42L;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    private Simulation simulation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        simulation = BenchmarkWorlds.generated(size, SEED);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Tile[][] generate() {
+        return new WorldGenerator(size, size, SEED).generate();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void emptyWorldTick() {
+        simulation.tick();
+    }
+}
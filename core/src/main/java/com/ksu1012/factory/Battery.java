@@ -10,4 +10,9 @@ public class Battery extends Building {
     public void update(float delta, Tile[][] grid) {
         // Do nothing. Logic handled by PowerNetwork
     }
+
+    @Override
+    public boolean needsUpdate() {
+        return false;
+    }
 }
@@ -1,7 +1,6 @@
 package com.ksu1012.factory;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
  * Abstract base class representing any placeable entity in the game world.
@@ -9,9 +8,17 @@ import java.util.HashSet;
  * This class handles core building logic, including:
  * <ul>
  *   <li>Multi-tile footprints (Width/Height)</li>
- *   <li>Inventory management with slot-specific capacity limits</li>
+ *   <li>Inventory management with slot-specific capacity limits (primitive arrays indexed by {@code ItemType.ordinal()})</li>
  *   <li>Directional item transport logic ({@code tryPushItem})</li>
  * </ul>
+ * Item transport is two-phase: {@code update} only queues push intents into a {@link TransferBuffer},
+ * and the simulation delivers them after every building has been updated.
+ * <p>
+ * A building that cannot make progress calls {@link #sleep()} and is skipped by the update loop until {@link #wake()}:
+ * an item arrives, an output neighbor makes room or wakes up, its power comes back, or a neighbor is placed or removed.
+ * A building may only sleep if every update until then would change nothing, so sleeping never changes the results.
+ * A building whose updates would only advance a timer calls {@link #sleepUntil(long)} instead, and is also woken on
+ * the tick the timer completes.
  */
 
 public abstract class Building {
@@ -22,29 +29,57 @@ public abstract class Building {
 
     protected BuildingDef definition;
 
-    protected HashMap<ItemType, Integer> inventory = new HashMap<>();
+    // Item counts, indexed by ItemType ordinal
+    protected int[] inventory = new int[ItemType.COUNT];
 
     // Collective item capacity (primarily for conveyors). -1 if no limit
     protected int globalMax = -1;
 
-    // Item-specific limits
-    protected HashMap<ItemType, Integer> itemMaxes = new HashMap<>();
+    // Item-specific limits, indexed by ItemType ordinal. -1 if the item has no specific limit
+    protected int[] itemMaxes = new int[ItemType.COUNT];
 
     protected int currentTotalItemCount = 0;
 
-    protected HashSet<ItemType> acceptedItems = new HashSet<>();
+    // Bitmask of accepted items (bit = ItemType ordinal)
+    protected int acceptedItems = 0;
     protected boolean acceptsAll = false;
 
-    // Types of terrain the Building can be placed on
-    protected HashSet<TerrainType> validTerrain = new HashSet<>();
+    // Bitmask of terrain the Building can be placed on (bit = TerrainType ordinal)
+    protected int validTerrain = 0;
 
     public float energyCapacity = 0f;
-    public float currentEnergy = 0f;
+    public float currentEnergy = 0f;     // Stored charge while not in a network (the network holds the live value)
     public float powerProduction = 0f;   // Current output
     public float powerConsumption = 0f;  // Current demand
 
     public PowerNetwork network = null;
-    public boolean hasPower = false;
+
+    // Slots in the network's packed arrays, maintained by PowerNetwork (-1 = not in that array)
+    int memberSlot = -1;
+    int producerSlot = -1;
+    int consumerSlot = -1;
+    int batterySlot = -1;
+
+    // Chunk bookkeeping, maintained by BuildingChunks
+    int chunkIndex = -1;
+    boolean parallelUpdate = false;
+
+    // Outgoing push intents are queued here (the buffer of this building's chunk)
+    TransferBuffer transfers = null;
+
+    // Bitmask (by ItemType ordinal) of items already queued this tick, so the same item is never pushed twice
+    int queuedPushes = 0;
+
+    // Sleep state, maintained by BuildingChunks
+    BuildingChunks chunks = null;
+    boolean asleep = false;
+    boolean wakeQueued = false; // Waiting to be merged back into the update list
+    long sleepTick = 0; // Tick of the last update before falling asleep
+    long wakeTick = -1; // Tick a timed sleep ends (see sleepUntil), -1 if the last sleep was untimed
+    boolean parked = false; // Asleep and not woken by anything until unparked (see Simulation.fastForward)
+
+    // A neighbor sleeps until this building has room or wakes up
+    boolean feederAsleep = false;
 
     public Building(int x, int y, BuildingDef def) {
         this.x = x;
@@ -57,59 +92,58 @@ public abstract class Building {
         this.energyCapacity = def.energyCapacity;
         this.powerConsumption = def.powerConsumption;
 
+        Arrays.fill(itemMaxes, -1);
+
         // Allow building on dirt by default
-        validTerrain.add(TerrainType.DIRT);
+        validTerrain |= 1 << TerrainType.DIRT.ordinal();
     }
 
     public abstract void update(float delta, Tile[][] grid);
 
     // Check if Building can be placed on the terrain below
     public boolean canBuildOn(TerrainType terrain) {
-        return validTerrain.contains(terrain);
+        return (validTerrain & (1 << terrain.ordinal())) != 0;
     }
 
     // Pushes the first item in line
-    protected boolean tryPushItem(Tile[][] grid) {
-        return tryPushItem(grid, getFirstItem());
+    protected boolean tryPushItem() {
+        return tryPushItem(getFirstItem());
     }
 
     /**
-     * Iterates through the output edge of the building based on its dimensions and orientation.
-     * Attempts to push items into valid neighboring inventories.
+     * Queues one item to be pushed out of the output edge at the end of this tick.
+     * The neighbor is not touched here; the transfer happens in the commit phase ({@link TransferBuffer}),
+     * and {@link #onItemPushed(ItemType)} is called if it succeeds.
      *
-     * @param grid The game map for neighbor lookups.
-     * @return true if an item was successfully transferred.
+     * @return true if the push was queued.
      */
-    protected boolean tryPushItem(Tile[][] grid, ItemType itemToMove) {
-        if (itemToMove == null || inventory.getOrDefault(itemToMove, 0) <= 0) return false;
+    protected boolean tryPushItem(ItemType itemToMove) {
+        if (itemToMove == null || inventory[itemToMove.ordinal()] <= 0) return false;
+        if (transfers == null) return false; // Not part of a simulation
 
-        // Determine loop limits based on orientation
-        boolean isVertical = (facing == Direction.NORTH || facing == Direction.SOUTH);
-        int limit = isVertical ? width : height;
+        int bit = 1 << itemToMove.ordinal();
+        if ((queuedPushes & bit) != 0) return false;
+
+        queuedPushes |= bit;
+        transfers.add(this, itemToMove);
+        return true;
+    }
 
+    /**
+     * Commit phase, pass 1. Iterates through the output edge of the building based on its dimensions and orientation.
+     * Offers the item to valid neighboring inventories without removing it from this building yet.
+     *
+     * @param grid The game map for neighbor lookups.
+     * @return true if a neighbor accepted the item.
+     */
+    boolean deliverItem(Tile[][] grid, ItemType itemToMove) {
         // Loop through output edge
+        int limit = getOutputEdgeLength();
         for (int i = 0; i < limit; i++) {
-            int targetX = x;
-            int targetY = y;
-
-            switch (facing) {
-                case NORTH: targetX = x + i; targetY = y + height; break;
-                case SOUTH: targetX = x + i; targetY = y - 1; break;
-                case EAST:  targetX = x + width; targetY = y + i; break;
-                case WEST:  targetX = x - 1; targetY = y + i; break;
-            }
-
-            if (targetX < 0 || targetX >= grid.length || targetY < 0 || targetY >= grid[0].length) {
-                continue;
-            }
-
-            Building neighbor = grid[targetX][targetY].building;
+            Building neighbor = getOutputNeighbor(grid, i);
             if (neighbor != null) {
                 // Try to insert the SPECIFIC item we asked for
                 if (neighbor.addItem(itemToMove, 1, this.facing)) {
-                    inventory.put(itemToMove, inventory.get(itemToMove) - 1);
-                    if (inventory.get(itemToMove) <= 0) inventory.remove(itemToMove);
-                    currentTotalItemCount--;
                     return true;
                 }
             }
@@ -117,6 +151,66 @@ public abstract class Building {
         return false;
     }
 
+    /**
+     * Commit phase, after all transfers. Whether the push of this item can only succeed once an output neighbor changes:
+     * no neighbor has room for it, and none can make room in its own next update (an awake building that consumes items).
+     * If so, the neighbors are flagged to wake this building when they make room or wake up themselves.
+     */
+    boolean isOutputBlocked(Tile[][] grid, ItemType item) {
+        int limit = getOutputEdgeLength();
+        for (int i = 0; i < limit; i++) {
+            Building neighbor = getOutputNeighbor(grid, i);
+            if (neighbor == null) continue;
+            if (neighbor.hasRoomFor(item, facing)) return false;
+            if (neighbor.consumesItems() && !neighbor.asleep) return false;
+        }
+
+        for (int i = 0; i < limit; i++) {
+            Building neighbor = getOutputNeighbor(grid, i);
+            if (neighbor != null) neighbor.feederAsleep = true;
+        }
+        return true;
+    }
+
+    int getOutputEdgeLength() {
+        // Determine loop limits based on orientation
+        boolean isVertical = (facing == Direction.NORTH || facing == Direction.SOUTH);
+        return isVertical ? width : height;
+    }
+
+    // The building on tile i of the output edge, or null
+    Building getOutputNeighbor(Tile[][] grid, int i) {
+        int targetX = x;
+        int targetY = y;
+
+        switch (facing) {
+            case NORTH: targetX = x + i; targetY = y + height; break;
+            case SOUTH: targetX = x + i; targetY = y - 1; break;
+            case EAST:  targetX = x + width; targetY = y + i; break;
+            case WEST:  targetX = x - 1; targetY = y + i; break;
+        }
+
+        if (targetX < 0 || targetX >= grid.length || targetY < 0 || targetY >= grid[0].length) {
+            return null;
+        }
+        return grid[targetX][targetY].building;
+    }
+
+    // Commit phase, pass 2. The delivered item leaves this building
+    void completePush(ItemType item) {
+        removeInternalItem(item, 1);
+        onItemPushed(item);
+        if (feederAsleep) chunks.queueFeederWake(chunkIndex, this);
+    }
+
+    // Commit phase, after all transfers: a push queued this tick found no room. Override to fall asleep
+    void onPushBlocked(Tile[][] grid) {
+    }
+
+    // Called after an item queued by tryPushItem has left this building. Override in subclasses
+    protected void onItemPushed(ItemType item) {
+    }
+
     public boolean addItem(ItemType type, int amount, Direction incomingDirection) {
 
         // Block items coming from the direction this Building is facing
@@ -126,11 +220,27 @@ public abstract class Building {
 
         // Filter Check
         if (!acceptsItem(type)) {
-            System.out.println("Rejected " + type + ". Allowed: " + acceptedItems);
             return false;
         }
 
-        return addInternalItem(type, amount);
+        if (!addInternalItem(type, amount)) {
+            return false;
+        }
+        wake();
+        return true;
+    }
+
+    // Whether addItem would accept one of the item right now (same checks, nothing is added)
+    protected boolean hasRoomFor(ItemType type, Direction incomingDirection) {
+        if (incomingDirection == this.facing.opposite() || !acceptsItem(type)) {
+            return false;
+        }
+
+        int slot = type.ordinal();
+        if (itemMaxes[slot] != -1) {
+            return inventory[slot] + 1 <= itemMaxes[slot];
+        }
+        return globalMax == -1 || currentTotalItemCount + 1 <= globalMax;
     }
 
     // Override to ignore direction check
@@ -140,12 +250,11 @@ public abstract class Building {
 
     // Internal logic that checks both the Global Max and the Individual Max.
     protected boolean addInternalItem(ItemType type, int amount) {
-        // Check Item-Specific limit
-        if (itemMaxes.containsKey(type)) {
-            int currentSpecific = inventory.getOrDefault(type, 0);
-            int maxSpecific = itemMaxes.get(type);
+        int slot = type.ordinal();
 
-            if (currentSpecific + amount > maxSpecific) {
+        // Check Item-Specific limit
+        if (itemMaxes[slot] != -1) {
+            if (inventory[slot] + amount > itemMaxes[slot]) {
                 return false;
             }
         }
@@ -158,11 +267,17 @@ public abstract class Building {
         }
 
         // Add the item
-        inventory.put(type, inventory.getOrDefault(type, 0) + amount);
+        inventory[slot] += amount;
         currentTotalItemCount += amount;
         return true;
     }
 
+    // Removes items the caller has already checked are present (crafting inputs, fuel, pushed items)
+    protected void removeInternalItem(ItemType type, int amount) {
+        inventory[type.ordinal()] -= amount;
+        currentTotalItemCount -= amount;
+    }
+
     public void setFacing(Direction newFacing) {
         // Check if we are changing orientation (Vertical <-> Horizontal)
         boolean isCurrentlyVertical = (this.facing == Direction.NORTH || this.facing == Direction.SOUTH);
@@ -181,16 +296,24 @@ public abstract class Building {
     // --- HELPERS ---
 
     public int getItemCount(ItemType type) {
-        return inventory.getOrDefault(type, 0);
+        return inventory[type.ordinal()];
     }
 
+    // Lowest-ordinal item held, so the choice is deterministic
     public ItemType getFirstItem() {
-        if (inventory.isEmpty()) return null;
-        return inventory.keySet().iterator().next();
+        if (currentTotalItemCount <= 0) return null;
+        for (int i = 0; i < inventory.length; i++) {
+            if (inventory[i] > 0) return ItemType.get(i);
+        }
+        return null;
     }
 
     public boolean acceptsItem(ItemType type) {
-        return acceptedItems.contains(type) || acceptsAll;
+        return (acceptedItems & (1 << type.ordinal())) != 0 || acceptsAll;
+    }
+
+    protected void setAcceptsItem(ItemType type) {
+        acceptedItems |= 1 << type.ordinal();
     }
 
     protected void setAcceptsAnyItem(boolean value) { this.acceptsAll = value; }
@@ -200,7 +323,7 @@ public abstract class Building {
     }
 
     protected void setItemCap(ItemType type, int max) {
-        itemMaxes.put(type, max);
+        itemMaxes[type.ordinal()] = max;
     }
 
     public void onPlaced(Tile[][] grid) {
@@ -219,6 +342,122 @@ public abstract class Building {
         return definition.energyCapacity > 0;
     }
 
+    // Whether this Building can feed power into its network (its output may change at runtime)
+    public boolean generatesPower() {
+        return definition.powerGeneration > 0;
+    }
+
+    // Sets the current output and mirrors it into the network's producer array
+    protected void setPowerProduction(float production) {
+        this.powerProduction = production;
+        if (network != null && producerSlot >= 0) {
+            network.setProducerOutput(producerSlot, production);
+        }
+    }
+
+    // Whether the network supplied enough power in the last power step
+    public boolean hasPower() {
+        return network != null && network.powered;
+    }
+
+    public float getStoredEnergy() {
+        if (network != null && batterySlot >= 0) {
+            return network.getStoredEnergy(batterySlot);
+        }
+        return currentEnergy;
+    }
+
+    // Whether update() has to be called every tick. Conveyors are moved by their TransportLine instead
+    public boolean needsUpdate() {
+        return true;
+    }
+
+    // Whether update() can take items out of the inventory (crafting, burning fuel, the Core emptying itself),
+    // making room without a transfer. Neighbors feeding such a building only sleep while it sleeps too
+    public boolean consumesItems() {
+        return false;
+    }
+
+    // --- SLEEP ---
+
+    /**
+     * Takes this building out of the update loop until {@link #wake()} is called.
+     * Only call this when every further update would change nothing until one of the wake events happens.
+     */
+    protected void sleep() {
+        if (chunks == null || asleep) return;
+        asleep = true;
+        sleepTick = chunks.getTick();
+        wakeTick = -1;
+        chunks.markAsleep(this);
+    }
+
+    /**
+     * Like {@link #sleep()}, but the building is also woken on the given tick and updated in it.
+     * Only call this when every update before that tick would change nothing but a timer, which
+     * {@link #onWake(int)} has to replay. Does nothing if the tick is the next one anyway.
+     */
+    protected void sleepUntil(long tick) {
+        if (chunks == null || asleep || tick <= chunks.getTick() + 1) return;
+        sleep();
+        wakeTick = tick;
+        chunks.scheduleWake(this);
+    }
+
+    // Puts a sleeping building back into the update loop from the next tick on. Only call between updates
+    public void wake() {
+        if (!asleep || parked) return;
+        asleep = false;
+        chunks.markAwake(this);
+    }
+
+    // Sleeps until unpark(), whatever happens around it
+    void park() {
+        sleep();
+        parked = true;
+    }
+
+    // Resumes a parked building from the next tick on, without replaying the ticks it was parked for
+    void unpark() {
+        if (!parked) return;
+        parked = false;
+        sleepTick = chunks.getTick();
+        wakeTick = -1;
+        wake();
+    }
+
+    public boolean isAsleep() {
+        return asleep;
+    }
+
+    // Called before the first update after waking up, with the number of ticks that were skipped
+    protected void onWake(int skippedTicks) {
+        // Override in subclasses
+    }
+
+    // Wakes every building touching this one's footprint (after placement or removal, or when this one made room)
+    void wakeNeighbors(Tile[][] grid) {
+        for (int i = 0; i < width; i++) {
+            wakeAt(grid, x + i, y - 1);
+            wakeAt(grid, x + i, y + height);
+        }
+        for (int j = 0; j < height; j++) {
+            wakeAt(grid, x - 1, y + j);
+            wakeAt(grid, x + width, y + j);
+        }
+    }
+
+    private static void wakeAt(Tile[][] grid, int tileX, int tileY) {
+        if (tileX < 0 || tileY < 0 || tileX >= grid.length || tileY >= grid[0].length) return;
+        Building b = grid[tileX][tileY].building;
+        if (b != null) b.wake();
+    }
+
+    // Whether update() only touches this building's own state, so it can run on a worker thread
+    public boolean canUpdateInParallel() {
+        return true;
+    }
+
     public boolean connectsToPower() {
         return energyCapacity > 0 || definition.powerGeneration > 0 || powerConsumption > 0 || this instanceof PowerPole;
     }
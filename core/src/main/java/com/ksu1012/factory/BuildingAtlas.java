@@ -0,0 +1,96 @@
+package com.ksu1012.factory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Packs the sprites of every {@link BuildingType} into one texture atlas and attaches them to the definitions.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li><b>Generated Sprites:</b> Each type gets a sprite at its full footprint, painted once from
+ *   {@link BuildingDef#color}, so drawing a building is a single untinted region draw.</li>
+ *   <li><b>Art Override:</b> If {@value #ATLAS_FILE} exists in the assets, regions named after the lower-case
+ *   type name (e.g. {@code basic_drill}) replace the generated ones.</li>
+ *   <li><b>Shared Page:</b> A 1x1 white region lives on the same page as the sprites, so decorations, the ghost
+ *   and power lines don't force the batch to switch textures between buildings.</li>
+ * </ul>
+ * Regions are stored in {@link BuildingDef#region}. Headless runs never create the atlas and leave them null.
+ */
+
+public class BuildingAtlas implements Disposable {
+    public static final String ATLAS_FILE = "buildings.atlas";
+
+    private static final String WHITE_REGION = "white";
+    private static final int PAGE_SIZE = 512; // Fits every generated sprite (the core is 96x96)
+    private static final int PADDING = 2; // Keeps neighbouring sprites from bleeding into each other
+    private static final int BORDER = 2; // Gap around the body, in texels
+
+    private final int tileSize;
+    private final TextureAtlas generated;
+    private final TextureAtlas art; // Null if there is no atlas file
+    private final TextureRegion white;
+
+    public BuildingAtlas(int tileSize) {
+        this.tileSize = tileSize;
+
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, PADDING, false);
+
+        Pixmap pixel = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixel.setColor(Color.WHITE);
+        pixel.fill();
+        packer.pack(WHITE_REGION, pixel);
+        pixel.dispose();
+
+        for (BuildingType type : BuildingType.values()) {
+            Pixmap sprite = paint(type.def);
+            packer.pack(type.name(), sprite);
+            sprite.dispose();
+        }
+
+        generated = packer.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        packer.dispose();
+        white = generated.findRegion(WHITE_REGION);
+
+        FileHandle file = Gdx.files.internal(ATLAS_FILE);
+        art = file.exists() ? new TextureAtlas(file) : null;
+
+        for (BuildingType type : BuildingType.values()) {
+            TextureRegion region = (art != null) ? art.findRegion(type.name().toLowerCase()) : null;
+            if (region == null) region = generated.findRegion(type.name());
+            type.def.region = region;
+        }
+    }
+
+    // Body box in the building color with a transparent border, same as the old per-frame tinted quad
+    private Pixmap paint(BuildingDef def) {
+        int width = def.width * tileSize;
+        int height = def.height * tileSize;
+
+        Pixmap sprite = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        sprite.setColor(def.color);
+        sprite.fillRectangle(BORDER, BORDER, width - BORDER * 2, height - BORDER * 2);
+        return sprite;
+    }
+
+    // 1x1 white texel on the sprite page, for tinted boxes and lines
+    public TextureRegion getWhite() {
+        return white;
+    }
+
+    @Override
+    public void dispose() {
+        for (BuildingType type : BuildingType.values()) {
+            type.def.region = null;
+        }
+        generated.dispose();
+        if (art != null) art.dispose();
+    }
+}
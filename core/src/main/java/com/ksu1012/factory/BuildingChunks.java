@@ -0,0 +1,313 @@
+package com.ksu1012.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitions the map into square chunks and buckets every building by the chunk containing its origin tile.
+ * <p>
+ * Buckets are kept sorted by tile position, so iterating them gives the same order no matter in which order
+ * buildings were placed. Each chunk owns a {@link TransferBuffer} for the push intents of its buildings, so
+ * chunks can be updated concurrently and their transfers committed afterwards in chunk order.
+ * <p>
+ * Besides all buildings, each chunk keeps the subset that needs a per-tick update and the {@link TransportLine}s
+ * whose head lies in it, both in the same tile order.
+ * <p>
+ * The update lists only hold awake buildings. Sleeping buildings are dropped from them, and woken ones are merged
+ * back in tile order at the start of the next tick, so the update order (and with it the results) is the same as if
+ * every building had been updated. Timed sleeps ({@link Building#sleepUntil(long)}) are woken by a {@link TimerWheel}.
+ */
+
+public class BuildingChunks {
+    public static final int CHUNK_SIZE = 64;
+
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int chunksX;
+    private final int chunksY;
+    private final ArrayList<ArrayList<Building>> buckets = new ArrayList<>();
+    private final ArrayList<ArrayList<Building>> updateBuckets = new ArrayList<>(); // Only buildings with needsUpdate()
+    private final ArrayList<ArrayList<TransportLine>> lineBuckets = new ArrayList<>();
+    private final TransferBuffer[] transfers;
+
+    // --- SLEEP STATE ---
+    private final ArrayList<ArrayList<Building>> wakeBuckets = new ArrayList<>(); // Woken since the last tick, in tile order
+    private final ArrayList<ArrayList<Building>> feederWakes = new ArrayList<>(); // Made room or woke up, neighbors to wake
+    private final ArrayList<ArrayList<Building>> timedSleepers = new ArrayList<>(); // Fell asleep until a tick, not in the wheel yet
+    private final boolean[] sleepers; // The update list holds buildings that fell asleep
+    private final TimerWheel timers = new TimerWheel();
+    private ArrayList<Building> mergeBuffer = new ArrayList<>();
+    private long tick = -1;
+
+    // Largest width or height of any building added so far. A building can reach this far past its chunk
+    private int maxFootprint = 1;
+
+    public BuildingChunks(int mapWidth, int mapHeight) {
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.chunksX = (mapWidth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunksY = (mapHeight + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        this.transfers = new TransferBuffer[chunksX * chunksY];
+        this.sleepers = new boolean[chunksX * chunksY];
+        for (int i = 0; i < chunksX * chunksY; i++) {
+            buckets.add(new ArrayList<>());
+            updateBuckets.add(new ArrayList<>());
+            lineBuckets.add(new ArrayList<>());
+            wakeBuckets.add(new ArrayList<>());
+            feederWakes.add(new ArrayList<>());
+            timedSleepers.add(new ArrayList<>());
+            transfers[i] = new TransferBuffer(64);
+        }
+    }
+
+    public void add(Building b) {
+        int chunk = chunkIndexOf(b.x, b.y);
+        b.chunkIndex = chunk;
+        b.parallelUpdate = b.canUpdateInParallel();
+        b.transfers = transfers[chunk];
+        b.chunks = this;
+        maxFootprint = Math.max(maxFootprint, Math.max(b.width, b.height));
+
+        insertSorted(buckets.get(chunk), b);
+        if (b.needsUpdate()) insertSorted(updateBuckets.get(chunk), b);
+    }
+
+    public void remove(Building b) {
+        if (b.chunkIndex < 0) return;
+        buckets.get(b.chunkIndex).remove(b);
+        updateBuckets.get(b.chunkIndex).remove(b);
+        if (b.wakeQueued) wakeBuckets.get(b.chunkIndex).remove(b);
+        b.chunkIndex = -1;
+        b.parallelUpdate = false;
+        b.transfers = null;
+        b.chunks = null;
+        b.asleep = false;
+        b.wakeTick = -1;
+        b.parked = false;
+        b.wakeQueued = false;
+        b.feederAsleep = false;
+    }
+
+    // Keeps a bucket sorted by tile position (binary search for the insertion point)
+    private void insertSorted(ArrayList<Building> bucket, Building b) {
+        int key = sortKey(b);
+        int low = 0;
+        int high = bucket.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortKey(bucket.get(mid)) < key) low = mid + 1;
+            else high = mid;
+        }
+        bucket.add(low, b);
+    }
+
+    private int sortKey(Building b) {
+        return b.y * mapWidth + b.x;
+    }
+
+    // --- SLEEP / WAKE ---
+
+    // Tick being run (between ticks: the last one). Set by the simulation before anything else in a tick
+    public void setTick(long tick) {
+        this.tick = tick;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    // Called by Building.sleep(). Only touches the building's own chunk, so it is safe during parallel updates
+    void markAsleep(Building b) {
+        sleepers[b.chunkIndex] = true;
+    }
+
+    // Called by Building.sleepUntil(). Queued per chunk like markAsleep(), and moved into the wheel before the next tick
+    void scheduleWake(Building b) {
+        timedSleepers.get(b.chunkIndex).add(b);
+    }
+
+    // Called by Building.wake(), only between updates
+    void markAwake(Building b) {
+        if (!b.wakeQueued) {
+            b.wakeQueued = true;
+            insertSorted(wakeBuckets.get(b.chunkIndex), b);
+        }
+        queueFeederWake(b.chunkIndex, b);
+    }
+
+    /**
+     * Asks for the sleeping neighbors of b to be woken before the next tick, if any of them waits for it.
+     * The chunk is the one whose update or commit is running, so transport lines can call this during parallel updates.
+     */
+    void queueFeederWake(int chunk, Building b) {
+        if (!b.feederAsleep) return;
+        b.feederAsleep = false;
+        feederWakes.get(chunk).add(b);
+    }
+
+    /**
+     * Start of a tick: wakes the buildings whose timed sleep ends on this tick, then the neighbors of every building
+     * that made room or woke up since the last tick (which can wake further buildings), then merges the woken
+     * buildings into the update lists and drops the sleeping ones.
+     */
+    public void prepareUpdates(Tile[][] grid) {
+        for (int c = 0; c < timedSleepers.size(); c++) {
+            ArrayList<Building> queue = timedSleepers.get(c);
+            for (int i = 0; i < queue.size(); i++) {
+                Building b = queue.get(i);
+                if (b.asleep) timers.schedule(b, b.wakeTick);
+            }
+            queue.clear();
+        }
+        timers.advance(tick);
+
+        boolean pending = true;
+        while (pending) {
+            pending = false;
+            for (int c = 0; c < feederWakes.size(); c++) {
+                ArrayList<Building> queue = feederWakes.get(c);
+                if (queue.isEmpty()) continue;
+
+                pending = true;
+                for (int i = 0; i < queue.size(); i++) { // Can grow while waking
+                    queue.get(i).wakeNeighbors(grid);
+                }
+                queue.clear();
+            }
+        }
+
+        for (int c = 0; c < updateBuckets.size(); c++) {
+            ArrayList<Building> woken = wakeBuckets.get(c);
+            if (!sleepers[c] && woken.isEmpty()) continue;
+            sleepers[c] = false;
+            mergeWoken(c, woken);
+        }
+    }
+
+    // Rebuilds a chunk's update list from the awake buildings still in it and the woken ones, both in tile order
+    private void mergeWoken(int chunk, ArrayList<Building> woken) {
+        ArrayList<Building> current = updateBuckets.get(chunk);
+        ArrayList<Building> merged = mergeBuffer;
+
+        int j = 0;
+        for (int i = 0; i < current.size(); i++) {
+            Building b = current.get(i);
+            if (b.asleep || b.wakeQueued) continue; // Woken ones are re-added from the wake list
+
+            int key = sortKey(b);
+            while (j < woken.size() && sortKey(woken.get(j)) < key) {
+                addWoken(merged, woken.get(j++));
+            }
+            merged.add(b);
+        }
+        while (j < woken.size()) {
+            addWoken(merged, woken.get(j++));
+        }
+        woken.clear();
+
+        current.clear();
+        updateBuckets.set(chunk, merged);
+        mergeBuffer = current;
+    }
+
+    private void addWoken(ArrayList<Building> merged, Building b) {
+        b.wakeQueued = false;
+        if (b.asleep) return; // Fell asleep again before the tick started
+
+        b.onWake((int) (tick - b.sleepTick - 1));
+        merged.add(b);
+    }
+
+    // --- TRANSPORT LINES ---
+
+    // Registers a line with the chunk of its head tile, sorted by head position
+    public void addLine(TransportLine line) {
+        Conveyor head = line.getHead();
+        int chunk = chunkIndexOf(head.x, head.y);
+        line.chunkIndex = chunk;
+
+        ArrayList<TransportLine> bucket = lineBuckets.get(chunk);
+        int key = sortKey(head);
+        int low = 0;
+        int high = bucket.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortKey(bucket.get(mid).getHead()) < key) low = mid + 1;
+            else high = mid;
+        }
+        bucket.add(low, line);
+    }
+
+    public void removeLine(TransportLine line) {
+        if (line.chunkIndex < 0) return;
+        lineBuckets.get(line.chunkIndex).remove(line);
+        line.chunkIndex = -1;
+    }
+
+    // --- QUERIES ---
+
+    public int chunkIndexOf(int tileX, int tileY) {
+        return (tileY / CHUNK_SIZE) * chunksX + (tileX / CHUNK_SIZE);
+    }
+
+    /**
+     * Collects every building whose footprint overlaps the tile rectangle (end exclusive).
+     * Only the chunks that can hold such a building are scanned, so the cost depends on the size of the
+     * rectangle and not on the total number of buildings.
+     */
+    public void queryRect(int startX, int startY, int endX, int endY, List<Building> out) {
+        // Buildings are bucketed by origin, so look far enough back to catch ones reaching into the rectangle
+        int firstChunkX = Math.max(0, startX - maxFootprint + 1) / CHUNK_SIZE;
+        int firstChunkY = Math.max(0, startY - maxFootprint + 1) / CHUNK_SIZE;
+        int lastChunkX = Math.min(mapWidth - 1, endX - 1) / CHUNK_SIZE;
+        int lastChunkY = Math.min(mapHeight - 1, endY - 1) / CHUNK_SIZE;
+
+        for (int cy = firstChunkY; cy <= lastChunkY; cy++) {
+            for (int cx = firstChunkX; cx <= lastChunkX; cx++) {
+                ArrayList<Building> bucket = buckets.get(cy * chunksX + cx);
+                for (int i = 0; i < bucket.size(); i++) {
+                    Building b = bucket.get(i);
+                    if (b.x + b.width > startX && b.x < endX && b.y + b.height > startY && b.y < endY) {
+                        out.add(b);
+                    }
+                }
+            }
+        }
+    }
+
+    public List<Building> getChunk(int index) {
+        return buckets.get(index);
+    }
+
+    // Buildings of a chunk that need a per-tick update, in tile order
+    public List<Building> getUpdateList(int index) {
+        return updateBuckets.get(index);
+    }
+
+    // Transport lines whose head lies in the chunk, in tile order
+    public List<TransportLine> getLines(int index) {
+        return lineBuckets.get(index);
+    }
+
+    // Buildings in the update lists (sleepers are dropped at the start of each tick)
+    public int getAwakeCount() {
+        int count = 0;
+        for (int i = 0; i < updateBuckets.size(); i++) {
+            count += updateBuckets.get(i).size();
+        }
+        return count;
+    }
+
+    public TransferBuffer getTransfers(int index) {
+        return transfers[index];
+    }
+
+    public int getChunkCount() {
+        return buckets.size();
+    }
+
+    public int getChunksX() { return chunksX; }
+
+    public int getChunksY() { return chunksY; }
+}
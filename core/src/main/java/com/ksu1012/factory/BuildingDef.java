@@ -1,5 +1,8 @@
 package com.ksu1012.factory;
 
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
 import java.util.HashMap;
 
 public abstract class BuildingDef {
@@ -8,10 +11,22 @@ public abstract class BuildingDef {
 
     public HashMap<ItemType, Integer> cost = new HashMap<>();
 
+    // Same cost indexed by ItemType ordinal, for allocation-free affordability checks
+    public int[] costAmounts = new int[ItemType.COUNT];
+
     public float powerGeneration = 0f;
     public float powerConsumption = 0f;
     public float energyCapacity = 0f;
 
+    // Body color, used both in the world view and on the zoomed-out map
+    public Color color = Color.WHITE;
+
+    // Sprite in the BuildingAtlas, covering the whole footprint (null until the renderer loads the atlas)
+    public TextureRegion region = null;
+
+    // The BuildingType this definition belongs to (set by BuildingType, null for ad-hoc definitions)
+    public BuildingType type = null;
+
     public BuildingDef(int width, int height) {
         this.width = width;
         this.height = height;
@@ -19,6 +34,7 @@ public abstract class BuildingDef {
 
     public BuildingDef addCost(ItemType item, int amount) {
         cost.put(item, amount);
+        costAmounts[item.ordinal()] = amount;
         return this;
     }
 
@@ -35,4 +51,9 @@ public abstract class BuildingDef {
         this.energyCapacity = amount;
         return this;
     }
+
+    public BuildingDef setColor(Color color) {
+        this.color = color;
+        return this;
+    }
 }
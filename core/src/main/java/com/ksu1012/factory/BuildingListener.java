@@ -0,0 +1,12 @@
+package com.ksu1012.factory;
+
+/**
+ * Notified by the {@link Simulation} whenever a building is added to or removed from the world.
+ * Used by render-side caches that only need to update the tiles that changed.
+ */
+
+public interface BuildingListener {
+    void onBuildingAdded(Building building);
+
+    void onBuildingRemoved(Building building);
+}
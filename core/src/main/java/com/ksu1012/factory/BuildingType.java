@@ -1,5 +1,7 @@
 package com.ksu1012.factory;
 
+import com.badlogic.gdx.graphics.Color;
+
 interface BuildingBuilder {
     Building build(int x, int y, BuildingDef def);
 }
@@ -15,65 +17,88 @@ interface BuildingBuilder {
 public enum BuildingType {
     // --- CONVEYORS ---
     BASIC_CONVEYOR(new ConveyorDef(0.5f)
-        .addCost(ItemType.COPPER, 1),
+        .addCost(ItemType.COPPER, 1)
+        .setColor(Colors.CONVEYOR),
         (x, y, def) -> new Conveyor(x, y, (ConveyorDef) def)), // Moves one item every 0.5s
 
     FAST_CONVEYOR(new ConveyorDef(0.2f)
-        .addCost(ItemType.IRON, 1),
+        .addCost(ItemType.IRON, 1)
+        .setColor(Colors.CONVEYOR),
         (x, y, def) -> new Conveyor(x, y, (ConveyorDef) def)),  // Moves one item every 0.2s
 
 
     // --- DRILLS ---
     BASIC_DRILL(new DrillDef(1, 1, 1.0f, 1)
-        .addCost(ItemType.COPPER, 5),
+        .addCost(ItemType.COPPER, 5)
+        .setColor(Colors.DRILL),
         (x, y, def) -> new Drill(x, y, (DrillDef) def)),
 
     LARGE_DRILL(new DrillDef(2, 2, 3.2f, 4)
         .addCost(ItemType.COPPER, 10)
-        .addCost(ItemType.IRON, 5),
+        .addCost(ItemType.IRON, 5)
+        .setColor(Colors.DRILL),
         (x, y, def) -> new Drill(x, y, (DrillDef) def)),
 
     // --- FACTORIES ---
     SMELTER(new FactoryDef(2, 2, 1.0f, 10,
         Recipes.SMELT_COPPER_COAL,
         Recipes.SMELT_IRON_COAL)
-        .addCost(ItemType.COPPER, 10),
+        .addCost(ItemType.COPPER, 10)
+        .setColor(Colors.FACTORY),
         (x, y, def) -> new Factory(x, y, (FactoryDef) def)),
 
     INDUSTRIAL_SMELTER(new FactoryDef(3, 3, 5.0f, 50,
         Recipes.SMELT_COPPER_COAL,
         Recipes.SMELT_IRON_COAL)
         .addCost(ItemType.COPPER, 30)
-        .addCost(ItemType.IRON, 15),
+        .addCost(ItemType.IRON, 15)
+        .setColor(Colors.FACTORY),
         (x, y, def) -> new Factory(x, y, (FactoryDef) def)),
 
     // --- GENERATORS ---
     COAL_GENERATOR(new GeneratorDef(2, 2, 1.0f, 10, 100f, 1000f, Recipes.BURN_COAL)
         .addCost(ItemType.COPPER, 10)
-        .addCost(ItemType.IRON, 5),
+        .addCost(ItemType.IRON, 5)
+        .setColor(Colors.FACTORY),
         (x, y, def) -> new Generator(x, y, (GeneratorDef) def)),
 
     // --- POWER POLES ---
     POWER_POLE(new PowerPoleDef(1, 1)
-        .addCost(ItemType.COPPER, 1),
+        .addCost(ItemType.COPPER, 1)
+        .setColor(Colors.POWER_POLE),
         PowerPole::new),
 
     // --- BATTERIES ---
     BATTERY(new BatteryDef(1, 1, 10000f)
-        .addCost(ItemType.COPPER, 5),
+        .addCost(ItemType.COPPER, 5)
+        .setColor(Colors.BATTERY),
         Battery::new),
 
     // --- CORE ---
-    CORE(new CoreDef(3, 3),
+    CORE(new CoreDef(3, 3)
+        .setColor(Colors.CORE),
         (x, y, def) -> new Core(x, y, (CoreDef) def));
 
 
+    // Body colors, shared by related types
+    private static class Colors {
+        static final Color CONVEYOR = Color.DARK_GRAY;
+        static final Color DRILL = new Color(0.4f, 0.8f, 0.4f, 1f); // Green
+        static final Color FACTORY = new Color(0.9f, 0.6f, 0.2f, 1f); // Orange
+        static final Color POWER_POLE = new Color(0.7f, 0.7f, 0.5f, 1f);
+        static final Color BATTERY = Color.LIME;
+        static final Color CORE = new Color(0.8f, 0.2f, 0.8f, 1f);
+    }
+
     public final BuildingDef def;
+    public final String displayName;
     private final BuildingBuilder builder;
 
     BuildingType(BuildingDef def, BuildingBuilder builder) {
         this.def = def;
         this.builder = builder;
+        def.type = this;
+        this.displayName = DisplayNames.format(name());
     }
 
     public Building create(int x, int y) {
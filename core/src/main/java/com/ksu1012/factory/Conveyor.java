@@ -1,29 +1,107 @@
 package com.ksu1012.factory;
 
+/**
+ * One belt tile. Holds at most one item.
+ * <p>
+ * Inside a simulation every conveyor belongs to a {@link TransportLine} (the straight run of same-type belts it is part of),
+ * which moves the items of all its tiles. The conveyor itself is not updated every tick.
+ */
+
 public class Conveyor extends Building {
-    private float moveTimer = 0f;
-    private float moveSpeed;
+    // Ticks an item needs to cross this belt. Moving on costs one more tick on a full belt (a tile only takes an item
+    // from the tick after it was emptied), so this is one less than the TICK_DELTA steps in the speed: a full belt then
+    // moves one item per speed seconds at any tick rate
+    final int ticksPerTile;
+
+    // Maintained by TransportLine / TransportLines
+    TransportLine line = null;
+    int lineIndex = -1; // 0 = head of the line
+    long arrivalTick = 0; // Tick the held item arrived on this tile
+    long vacatedTick = Long.MIN_VALUE; // Tick an item last moved off this tile along the line
 
     // Constructor takes the Definition now!
     public Conveyor(int x, int y, ConveyorDef def) {
         super(x, y, def);
-        this.moveSpeed = def.speed;
+        this.ticksPerTile = Math.max(1, ticksToCross(def.speed) - 1);
 
         setGlobalCap(1); // Holds 1 item
         setAcceptsAnyItem(true); // Accepts anything
     }
 
+    private static int ticksToCross(float speed) {
+        float timer = 0f;
+        int ticks = 0;
+        do {
+            timer += Simulation.TICK_DELTA;
+            ticks++;
+        } while (timer < speed);
+        return ticks;
+    }
+
     @Override
     public void update(float delta, Tile[][] grid) {
-        if (currentTotalItemCount > 0) {
-            moveTimer += delta;
-            if (moveTimer >= moveSpeed) {
-                if (tryPushItem(grid)) {
-                    moveTimer -= moveSpeed;
-                }
-            }
-        } else {
-            moveTimer = 0f;
-        }
+        // Items are moved by the TransportLine
+    }
+
+    @Override
+    public boolean needsUpdate() {
+        return false;
+    }
+
+    @Override
+    public boolean addItem(ItemType type, int amount, Direction incomingDirection) {
+        if (line == null) return super.addItem(type, amount, incomingDirection);
+
+        // Same rules as any building, plus: a tile emptied by the line this tick only takes items from the next tick on
+        if (incomingDirection == facing.opposite() || amount != 1) return false;
+        if (currentTotalItemCount > 0 || vacatedTick == line.tick()) return false;
+
+        line.insert(this, type);
+        return true;
+    }
+
+    @Override
+    protected boolean hasRoomFor(ItemType type, Direction incomingDirection) {
+        if (line == null) return super.hasRoomFor(type, incomingDirection);
+        return incomingDirection != facing.opposite() && currentTotalItemCount == 0;
+    }
+
+    @Override
+    protected void onItemPushed(ItemType item) {
+        if (line != null) line.onHeadPushed();
+    }
+
+    @Override
+    void onPushBlocked(Tile[][] grid) {
+        if (line != null) line.onPushBlocked(grid);
+    }
+
+    // Conveyors sleep as part of their line
+    @Override
+    public void wake() {
+        if (line != null) line.wake();
+    }
+
+    /**
+     * How far the held item has travelled across this belt, for drawing.
+     * Extrapolates by the fraction of a tick since the last one, so items glide between ticks.
+     *
+     * @param alpha Fraction of a tick elapsed since the last tick (see {@link Simulation#getAlpha()}).
+     * @return 0.0 at the entry edge to 1.0 at the exit edge (a blocked item waits at the exit edge).
+     */
+    public float getItemProgress(float alpha) {
+        if (currentTotalItemCount == 0 || line == null) return 0f;
+
+        float progress = ((line.tick() - arrivalTick) + alpha) / ticksPerTile;
+        return Math.max(0f, Math.min(1f, progress));
+    }
+
+    // How much getItemProgress() advances per tick, so the item renderer can extrapolate on the GPU
+    public float getProgressPerTick() {
+        return 1f / ticksPerTile;
+    }
+
+    public TransportLine getLine() {
+        return line;
     }
 }
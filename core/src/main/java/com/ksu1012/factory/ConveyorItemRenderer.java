@@ -0,0 +1,220 @@
+package com.ksu1012.factory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+import java.util.List;
+
+/**
+ * Draws the items on belts with one instanced draw call instead of one sprite per belt.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li><b>Instance Buffer:</b> Every belt holding an item in a visible chunk becomes one instance
+ *   (center, direction, progress, color index). The staging array and the mesh are reused, and only grow
+ *   when more items are in view than ever before.</li>
+ *   <li><b>Per Tick Upload:</b> Instance data changes only when the simulation ticks or the visible chunks change.
+ *   Between ticks, the shader extrapolates each item along its belt from the render alpha, the same way
+ *   {@link Conveyor#getItemProgress(float)} does.</li>
+ *   <li><b>Palette:</b> Item colors live in a uniform array indexed by {@link ItemType} ordinal.</li>
+ * </ul>
+ * Placing or removing a building forces a rebuild, so removed belts don't leave their item behind until the next tick.
+ * Needs GL30 (see {@link #isSupported()}). Without it, belts keep drawing their items through the SpriteBatch.
+ */
+
+public class ConveyorItemRenderer implements BuildingListener, Disposable {
+    private static final int CHUNK_SIZE = BuildingChunks.CHUNK_SIZE;
+    private static final int FLOATS_PER_INSTANCE = 7; // centerX, centerY, dirX, dirY, progress, progressPerTick, color
+    private static final int INITIAL_CAPACITY = 4096; // Instances
+    private static final float ITEM_SIZE = 8f; // In world pixels, same as the batch-drawn items
+
+    private static final String VERTEX_SHADER =
+        "attribute vec2 a_position;\n" // Quad corner, -0.5 to 0.5
+            + "attribute vec2 i_center;\n"
+            + "attribute vec2 i_direction;\n"
+            + "attribute vec2 i_progress;\n" // Progress at the last tick, progress per tick
+            + "attribute float i_color;\n"
+            + "uniform mat4 u_projTrans;\n"
+            + "uniform float u_alpha;\n"
+            + "uniform float u_tileSize;\n"
+            + "uniform float u_itemSize;\n"
+            + "uniform vec4 u_palette[" + ItemType.COUNT + "];\n"
+            + "varying vec4 v_color;\n"
+            + "void main() {\n"
+            + "    float progress = clamp(i_progress.x + u_alpha * i_progress.y, 0.0, 1.0);\n"
+            + "    vec2 center = i_center + i_direction * ((progress - 0.5) * u_tileSize);\n"
+            + "    v_color = u_palette[int(i_color)];\n"
+            + "    gl_Position = u_projTrans * vec4(center + a_position * u_itemSize, 0.0, 1.0);\n"
+            + "}\n";
+
+    private static final String FRAGMENT_SHADER =
+        "#ifdef GL_ES\n"
+            + "precision mediump float;\n"
+            + "#endif\n"
+            + "varying vec4 v_color;\n"
+            + "void main() {\n"
+            + "    gl_FragColor = v_color;\n"
+            + "}\n";
+
+    private final int tileSize;
+    private final ShaderProgram shader;
+    private final float[] palette = new float[ItemType.COUNT * 4];
+
+    private Mesh mesh;
+    private float[] instances;
+    private int capacity;
+    private int instanceCount = 0;
+
+    // What the instance buffer was built from, -1 until the first update
+    private long builtTick = -1;
+    private int builtFirstChunkX, builtFirstChunkY, builtLastChunkX, builtLastChunkY;
+
+    public ConveyorItemRenderer(int tileSize) {
+        this.tileSize = tileSize;
+
+        // Written in the same GLSL dialect as the SpriteBatch shader, so the backend adapts both the same way
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled()) {
+            throw new IllegalStateException("Conveyor item shader failed to compile: " + shader.getLog());
+        }
+
+        for (ItemType item : ItemType.values()) {
+            Color c = item.color;
+            int o = item.ordinal() * 4;
+            palette[o] = c.r;
+            palette[o + 1] = c.g;
+            palette[o + 2] = c.b;
+            palette[o + 3] = c.a;
+        }
+
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // Instanced drawing needs OpenGL ES 3.0 / OpenGL 3.2
+    public static boolean isSupported() {
+        return Gdx.gl30 != null;
+    }
+
+    private void allocate(int newCapacity) {
+        if (mesh != null) mesh.dispose();
+
+        mesh = new Mesh(true, 4, 6, new VertexAttribute(Usage.Position, 2, "a_position"));
+        mesh.setVertices(new float[] { -0.5f, -0.5f, 0.5f, -0.5f, 0.5f, 0.5f, -0.5f, 0.5f });
+        mesh.setIndices(new short[] { 0, 1, 2, 2, 3, 0 });
+        mesh.enableInstancedRendering(false, newCapacity,
+            new VertexAttribute(Usage.Generic, 2, "i_center"),
+            new VertexAttribute(Usage.Generic, 2, "i_direction"),
+            new VertexAttribute(Usage.Generic, 2, "i_progress"),
+            new VertexAttribute(Usage.Generic, 1, "i_color"));
+
+        float[] grown = new float[newCapacity * FLOATS_PER_INSTANCE];
+        if (instances != null) System.arraycopy(instances, 0, grown, 0, instanceCount * FLOATS_PER_INSTANCE);
+        instances = grown;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Rebuilds the instance buffer from the chunks overlapping the tile range (end exclusive),
+     * unless neither the tick nor the visible chunks changed since the last call.
+     */
+    public void update(BuildingChunks chunks, long tick, int startX, int startY, int endX, int endY) {
+        if (endX <= startX || endY <= startY) {
+            instanceCount = 0;
+            builtTick = -1;
+            return;
+        }
+
+        int firstChunkX = startX / CHUNK_SIZE;
+        int firstChunkY = startY / CHUNK_SIZE;
+        int lastChunkX = Math.min(chunks.getChunksX() - 1, (endX - 1) / CHUNK_SIZE);
+        int lastChunkY = Math.min(chunks.getChunksY() - 1, (endY - 1) / CHUNK_SIZE);
+
+        if (tick == builtTick && firstChunkX == builtFirstChunkX && firstChunkY == builtFirstChunkY
+            && lastChunkX == builtLastChunkX && lastChunkY == builtLastChunkY) {
+            return;
+        }
+
+        instanceCount = 0;
+        for (int cy = firstChunkY; cy <= lastChunkY; cy++) {
+            for (int cx = firstChunkX; cx <= lastChunkX; cx++) {
+                List<Building> bucket = chunks.getChunk(cy * chunks.getChunksX() + cx);
+                for (int i = 0; i < bucket.size(); i++) {
+                    Building b = bucket.get(i);
+                    if (b instanceof Conveyor) addItem((Conveyor) b);
+                }
+            }
+        }
+
+        if (instanceCount > 0) mesh.setInstanceData(instances, 0, instanceCount * FLOATS_PER_INSTANCE);
+
+        builtTick = tick;
+        builtFirstChunkX = firstChunkX;
+        builtFirstChunkY = firstChunkY;
+        builtLastChunkX = lastChunkX;
+        builtLastChunkY = lastChunkY;
+    }
+
+    private void addItem(Conveyor belt) {
+        ItemType item = belt.getFirstItem();
+        if (item == null) return;
+
+        if (instanceCount == capacity) allocate(capacity * 2);
+
+        int o = instanceCount * FLOATS_PER_INSTANCE;
+        instances[o] = (belt.x + 0.5f) * tileSize;
+        instances[o + 1] = (belt.y + 0.5f) * tileSize;
+        instances[o + 2] = belt.facing.dx;
+        instances[o + 3] = belt.facing.dy;
+        instances[o + 4] = belt.getItemProgress(0f);
+        instances[o + 5] = belt.getProgressPerTick();
+        instances[o + 6] = item.ordinal();
+        instanceCount++;
+    }
+
+    @Override
+    public void onBuildingAdded(Building building) {
+        builtTick = -1;
+    }
+
+    @Override
+    public void onBuildingRemoved(Building building) {
+        builtTick = -1;
+    }
+
+    /**
+     * Draws all items of the last update in one call. Must be called outside of a SpriteBatch begin/end pair.
+     *
+     * @param alpha Fraction of a tick since the last tick (see {@link Simulation#getAlpha()}).
+     */
+    public void draw(Matrix4 projection, float alpha) {
+        if (instanceCount == 0) return;
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", projection);
+        shader.setUniformf("u_alpha", alpha);
+        shader.setUniformf("u_tileSize", tileSize);
+        shader.setUniformf("u_itemSize", ITEM_SIZE);
+        shader.setUniform4fv("u_palette", palette, 0, palette.length);
+        mesh.render(shader, GL20.GL_TRIANGLES);
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    @Override
+    public void dispose() {
+        mesh.dispose();
+        shader.dispose();
+    }
+}
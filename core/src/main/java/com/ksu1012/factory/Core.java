@@ -1,6 +1,8 @@
 package com.ksu1012.factory;
 
 public class Core extends Building {
+    // Items delivered to the GameState so far, by ItemType ordinal
+    private final long[] delivered = new long[ItemType.COUNT];
 
     public Core(int x, int y, CoreDef def) {
         super(x, y, def);
@@ -14,21 +16,51 @@ public class Core extends Building {
     @Override
     public boolean addItem(ItemType type, int amount, Direction incomingDirection) {
         // Ignore directional checks
-        return addInternalItem(type, amount);
+        if (!addInternalItem(type, amount)) return false;
+        wake();
+        return true;
+    }
+
+    @Override
+    protected boolean hasRoomFor(ItemType type, Direction incomingDirection) {
+        return true;
+    }
+
+    @Override
+    public boolean consumesItems() {
+        return true;
+    }
+
+    @Override
+    public boolean canUpdateInParallel() {
+        return false; // Writes to the shared GameState
     }
 
     @Override
     public void update(float delta, Tile[][] grid) {
         // If there are items, remove them all from Core and add to GameState inventory
-        if (!inventory.isEmpty()) {
-            for (ItemType type : new java.util.HashSet<>(inventory.keySet())) {
-                int count = inventory.get(type);
+        if (currentTotalItemCount > 0) {
+            for (int i = 0; i < inventory.length; i++) {
+                int count = inventory[i];
+                if (count <= 0) continue;
 
-                GameState.instance.addResource(type, count);
+                GameState.instance.addResource(ItemType.get(i), count);
+                delivered[i] += count;
 
-                inventory.remove(type);
+                inventory[i] = 0;
                 currentTotalItemCount -= count;
             }
         }
+        sleep(); // Empty until the next delivery
+    }
+
+    // Delivers items that were not simulated (see Simulation.fastForward)
+    void credit(ItemType item, int amount) {
+        GameState.instance.addResource(item, amount);
+        delivered[item.ordinal()] += amount;
+    }
+
+    public long getDelivered(ItemType item) {
+        return delivered[item.ordinal()];
     }
 }
@@ -0,0 +1,23 @@
+package com.ksu1012.factory;
+
+/**
+ * Turns enum constant names into UI text ("INDUSTRIAL_SMELTER" -> "Industrial Smelter").
+ * Enums call this once in their constructor and keep the result, so the HUD never formats names at runtime.
+ */
+
+public final class DisplayNames {
+    private DisplayNames() {
+    }
+
+    public static String format(String enumName) {
+        String[] words = enumName.toLowerCase().split("_");
+        StringBuilder sb = new StringBuilder();
+        for (String word : words) {
+            if (word.isEmpty()) continue;
+            sb.append(Character.toUpperCase(word.charAt(0)))
+                .append(word.substring(1))
+                .append(" ");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -48,16 +48,70 @@ public class Drill extends Building {
 
     @Override
     public void update(float delta, Tile[][] grid) {
+        if (resource == null) {
+            sleep(); // Nothing to mine. Only a neighbor change wakes it, and it goes straight back to sleep
+            return;
+        }
+
         timer += delta;
         if (timer >= miningSpeed) {
             timer -= miningSpeed;
 
             mineResource();
         }
-        tryPushItem(grid);
+        tryPushItem();
+
+        // Nothing to push: only the timer runs until the next item is mined
+        if (currentTotalItemCount == 0) sleepUntil(nextMineTick());
     }
 
     private void mineResource() {
         addInternalItem(this.resource, quantity);
     }
+
+    // The last item left: sleep until the next one is mined
+    @Override
+    protected void onItemPushed(ItemType item) {
+        if (currentTotalItemCount == 0) sleepUntil(nextMineTick());
+    }
+
+    // Output is blocked: wait for the target to make room, or for the next item if there is room to mine it.
+    // Full, mining only wastes ore, so only the target can wake the drill
+    @Override
+    void onPushBlocked(Tile[][] grid) {
+        if (resource == null || !isOutputBlocked(grid, resource)) return;
+
+        if (currentTotalItemCount + quantity > globalMax) sleep();
+        else sleepUntil(nextMineTick());
+    }
+
+    // First tick whose update mines, found by replaying the timer's float steps so it matches update() exactly
+    private long nextMineTick() {
+        float t = timer;
+        long tick = chunks.getTick();
+        do {
+            t += Simulation.TICK_DELTA;
+            tick++;
+        } while (t < miningSpeed);
+        return tick;
+    }
+
+    // The mined item, or null if there is no ore beneath
+    public ItemType getResource() {
+        return resource;
+    }
+
+    // Items per second at full speed
+    public float getMiningRate() {
+        return resource == null ? 0f : quantity / miningSpeed;
+    }
+
+    @Override
+    protected void onWake(int skippedTicks) {
+        // The timer kept running while asleep, so replay it to stay in step
+        for (int i = 0; i < skippedTicks; i++) {
+            timer += Simulation.TICK_DELTA;
+            if (timer >= miningSpeed) timer -= miningSpeed;
+        }
+    }
 }
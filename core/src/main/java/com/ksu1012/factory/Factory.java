@@ -1,13 +1,24 @@
 package com.ksu1012.factory;
 
-import java.util.Map;
+/**
+ * Crafts the first of its definition's recipes that it has the inputs and output room for.
+ * <p>
+ * Whether a recipe can run is tracked as items arrive and leave: per recipe, the number of inputs below the amount
+ * needed plus the outputs without room for a craft. Finding a recipe is then a look at a bitmask instead of a walk
+ * over every recipe's inputs and outputs.
+ */
 
 public class Factory extends Building {
 
     FactoryDef definition;
-    private Recipe activeRecipe = null; // The recipe in progress
+    private final RecipeTable recipes;
+    private int activeRecipe = -1; // Index of the recipe in progress
     private float progressTimer = 0f;
 
+    // Per recipe: unmet input and output conditions. Updated in addInternalItem() and removeInternalItem()
+    private final int[] unmet;
+    private int craftable = 0; // Bitmask of the recipes with nothing unmet
+
     public Factory(int x, int y, FactoryDef def) {
         super(x, y, def);
         this.definition = def;
@@ -19,7 +30,7 @@ public class Factory extends Building {
         for (Recipe r : def.possibleRecipes) {
             // Allow inputs
             for (ItemType input : r.inputs.keySet()) {
-                this.acceptedItems.add(input);
+                this.setAcceptsItem(input);
 
                 // Set individual item caps (inputs)
                 this.setItemCap(input, def.itemCapacity);
@@ -30,100 +41,201 @@ public class Factory extends Building {
                 this.setItemCap(output, def.itemCapacity);
             }
         }
+
+        recipes = def.recipeTable;
+        unmet = new int[recipes.getRecipeCount()];
+        for (int r = 0; r < unmet.length; r++) {
+            for (int i = recipes.inputStart[r]; i < recipes.inputStart[r + 1]; i++) {
+                if (!hasInput(recipes.inputSlots[i], recipes.inputAmounts[i])) unmet[r]++;
+            }
+            for (int i = recipes.outputStart[r]; i < recipes.outputStart[r + 1]; i++) {
+                if (!hasOutputRoom(recipes.outputSlots[i], recipes.outputAmounts[i])) unmet[r]++;
+            }
+            if (unmet[r] == 0) craftable |= 1 << r;
+        }
     }
 
     @Override
     public void update(float delta, Tile[][] grid) {
         // Check Power
-        if (definition.powerConsumption > 0 && !hasPower) {
+        if (definition.powerConsumption > 0 && !hasPower()) {
+            sleep(); // Woken by the network when power comes back
             return;
         }
 
         // Find Recipe
-        if (activeRecipe == null) {
+        if (activeRecipe < 0) {
             findMatchingRecipe();
         }
 
         // Craft
-        if (activeRecipe != null) {
+        if (activeRecipe >= 0) {
             processRecipe(delta);
         }
 
         // Try to push outputs
-        for (Recipe r : definition.possibleRecipes) {
-            for (ItemType outputType : r.outputs.keySet()) {
-                if (getItemCount(outputType) > 0) {
-                    tryPushItem(grid, outputType);
-                }
+        boolean holdsOutputs = false;
+        ItemType[] outputs = recipes.outputItems;
+        for (int i = 0; i < outputs.length; i++) {
+            if (getItemCount(outputs[i]) > 0) {
+                tryPushItem(outputs[i]);
+                holdsOutputs = true;
             }
         }
+
+        if (holdsOutputs) return;
+        if (activeRecipe < 0) {
+            sleep(); // Missing inputs and nothing to push: wait for an item to arrive
+        } else {
+            sleepUntil(craftDoneTick()); // Only the progress timer runs until the craft completes
+        }
     }
 
-    private void findMatchingRecipe() {
-        // Iterate through all possible recipes for this machine
-        for (Recipe r : definition.possibleRecipes) {
-            if (canCraft(r)) {
-                activeRecipe = r;
-                return;
-            }
+    // The last output left while crafting: sleep until the craft completes
+    @Override
+    protected void onItemPushed(ItemType item) {
+        if (activeRecipe >= 0 && !holdsOutputs()) sleepUntil(craftDoneTick());
+    }
+
+    // Every output it holds is stuck: wait for a target to make room, or for the craft in progress to complete
+    @Override
+    void onPushBlocked(Tile[][] grid) {
+        if (activeRecipe < 0 && craftable != 0) return;
+
+        ItemType[] outputs = recipes.outputItems;
+        for (int i = 0; i < outputs.length; i++) {
+            if (getItemCount(outputs[i]) > 0 && !isOutputBlocked(grid, outputs[i])) return;
+        }
+
+        if (activeRecipe < 0) sleep();
+        else sleepUntil(craftDoneTick());
+    }
+
+    @Override
+    protected void onWake(int skippedTicks) {
+        // Only a timed sleep (a craft in progress) skipped any progress. The inputs stay and the outputs
+        // only make room while asleep, and losing power wakes it, so every skipped update would have progressed
+        if (wakeTick < 0 || activeRecipe < 0) return;
+        for (int i = 0; i < skippedTicks; i++) {
+            progressTimer += Simulation.TICK_DELTA * definition.craftingSpeed;
         }
     }
 
+    // First tick whose update completes the active recipe, replaying the float steps of processRecipe()
+    private long craftDoneTick() {
+        float t = progressTimer;
+        long tick = chunks.getTick();
+        do {
+            t += Simulation.TICK_DELTA * definition.craftingSpeed;
+            tick++;
+        } while (t < recipes.getRecipe(activeRecipe).craftTime);
+        return tick;
+    }
+
+    private boolean holdsOutputs() {
+        ItemType[] outputs = recipes.outputItems;
+        for (int i = 0; i < outputs.length; i++) {
+            if (getItemCount(outputs[i]) > 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean consumesItems() {
+        return true;
+    }
+
+    private void findMatchingRecipe() {
+        // The first recipe (in definition order) that can run
+        if (craftable != 0) activeRecipe = Integer.numberOfTrailingZeros(craftable);
+    }
+
     private void processRecipe(float delta) {
         // Check if crafting is possible
         if (canCraft(activeRecipe)) {
             progressTimer += delta * definition.craftingSpeed;
 
-            if (progressTimer >= activeRecipe.craftTime) { // Finish crafting
-                progressTimer -= activeRecipe.craftTime;
+            Recipe recipe = recipes.getRecipe(activeRecipe);
+            if (progressTimer >= recipe.craftTime) { // Finish crafting
+                progressTimer -= recipe.craftTime;
                 produceItem(activeRecipe);
 
-                activeRecipe = null;
+                activeRecipe = -1;
             }
         } else {
             // Reset if crafting no longer possible
             progressTimer = 0f;
-            activeRecipe = null;
+            activeRecipe = -1;
         }
     }
 
-    private boolean canCraft(Recipe r) {
-        // Check Ingredients
-        for (Map.Entry<ItemType, Integer> entry : r.inputs.entrySet()) {
-            if (getItemCount(entry.getKey()) < entry.getValue()) return false;
+    // Whether the recipe at this index has its inputs and room for its outputs. O(1)
+    protected boolean canCraft(int recipe) {
+        return (craftable & (1 << recipe)) != 0;
+    }
+
+    private void produceItem(int r) {
+        // Consume Inputs
+        for (int i = recipes.inputStart[r]; i < recipes.inputStart[r + 1]; i++) {
+            removeInternalItem(ItemType.get(recipes.inputSlots[i]), recipes.inputAmounts[i]);
+        }
+
+        // Add Outputs
+        for (int i = recipes.outputStart[r]; i < recipes.outputStart[r + 1]; i++) {
+            addInternalItem(ItemType.get(recipes.outputSlots[i]), recipes.outputAmounts[i]);
         }
+    }
 
-        // Check inventory capacity
-        for (Map.Entry<ItemType, Integer> entry : r.outputs.entrySet()) {
-            ItemType outType = entry.getKey();
-            int amountToProduce = entry.getValue();
+    // --- RECIPE TRACKING ---
 
-            int currentAmount = getItemCount(outType);
+    @Override
+    protected boolean addInternalItem(ItemType type, int amount) {
+        int before = inventory[type.ordinal()];
+        if (!super.addInternalItem(type, amount)) return false;
+        onCountChanged(type.ordinal(), before);
+        return true;
+    }
 
-            // Get the specific limit for this item type
-            int maxLimit = itemMaxes.get(outType);
+    @Override
+    protected void removeInternalItem(ItemType type, int amount) {
+        int before = inventory[type.ordinal()];
+        super.removeInternalItem(type, amount);
+        onCountChanged(type.ordinal(), before);
+    }
 
-            if (currentAmount + amountToProduce > maxLimit) {
-                return false; // Output is full
+    // Re-checks only the recipes that use the item whose count changed
+    private void onCountChanged(int slot, int before) {
+        int after = inventory[slot];
+        for (int u = recipes.useStart[slot]; u < recipes.useStart[slot + 1]; u++) {
+            int amount = recipes.useAmounts[u];
+
+            boolean wasMet, isMet;
+            if (recipes.useIsOutput[u]) {
+                wasMet = hasOutputRoom(slot, before, amount);
+                isMet = hasOutputRoom(slot, after, amount);
+            } else {
+                wasMet = before >= amount;
+                isMet = after >= amount;
             }
+            if (wasMet == isMet) continue;
+
+            int r = recipes.useRecipes[u];
+            unmet[r] += isMet ? -1 : 1;
+            if (unmet[r] == 0) craftable |= 1 << r;
+            else craftable &= ~(1 << r);
         }
+    }
 
-        return true;
+    private boolean hasInput(int slot, int amount) {
+        return inventory[slot] >= amount;
     }
 
-    private void produceItem(Recipe r) {
-        // Consume Inputs
-        for (Map.Entry<ItemType, Integer> entry : r.inputs.entrySet()) {
-            ItemType type = entry.getKey();
-            int amount = entry.getValue();
-            inventory.put(type, inventory.get(type) - amount);
-            if (inventory.get(type) <= 0) inventory.remove(type);
-            currentTotalItemCount -= amount;
-        }
+    private boolean hasOutputRoom(int slot, int amount) {
+        return hasOutputRoom(slot, inventory[slot], amount);
+    }
 
-        // Add Outputs
-        for (Map.Entry<ItemType, Integer> entry : r.outputs.entrySet()) {
-            addInternalItem(entry.getKey(), entry.getValue());
-        }
+    // Whether one more craft's worth of the output fits below the item's own limit
+    private boolean hasOutputRoom(int slot, int count, int amount) {
+        return count + amount <= itemMaxes[slot];
     }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 public class FactoryDef extends BuildingDef {
     // Store a list of Recipes that the factory can use
     public List<Recipe> possibleRecipes;
+    public RecipeTable recipeTable; // possibleRecipes compiled for the tick loop
     public float craftingSpeed;
 
     // Store how many of each item type the Factory can hold
@@ -16,5 +17,6 @@ public class FactoryDef extends BuildingDef {
         this.craftingSpeed = craftingSpeed;
         this.itemCapacity = itemCapacity; // Store the limit
         this.possibleRecipes = Arrays.asList(recipes);
+        this.recipeTable = new RecipeTable(possibleRecipes);
     }
 }
@@ -0,0 +1,781 @@
+package com.ksu1012.factory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Computes the long-run item rates of a base without running it.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li><b>Flow Graph:</b> One node per drill, factory, generator and core, and one per {@link TransportLine}.
+ *   Edges follow the push rules: a node offers its items to the buildings on its output edge, in edge order, and
+ *   a target only takes items it accepts from that direction.</li>
+ *   <li><b>Capacities:</b> Drills mine {@code quantity / miningSpeed} items per second, factories run
+ *   {@code craftingSpeed / craftTime} crafts per second, generators burn one fuel recipe per {@code craftTime},
+ *   and a line moves one item per {@code ticksPerTile + 1} ticks (an item only enters a tile that was free at the
+ *   start of the tick). No building pushes more than one item of a type per tick.</li>
+ *   <li><b>Solving:</b> Alternates a backward pass (how much each node can take, given what is downstream) and a
+ *   forward pass (what each node sends, first target first) until the rates settle. A full line serves its feeders
+ *   from the tail, as its gaps travel back to the tail, and splits its room between the items of a mixed offer.
+ *   A factory picks the first recipe whose inputs all arrive, like {@link Factory} does.</li>
+ *   <li><b>Results:</b> Rates per building and item, what limits each building, the bottlenecks, and the rates
+ *   delivered to the cores per region (group of buildings connected by item flow).</li>
+ * </ul>
+ * Rates are in items per second. Powered factories count as running if they have power right now. Buffers, start-up
+ * and the exact order of items on shared belts are not modelled, so the results are what a running base settles at,
+ * not what it does in its first minutes. {@link Simulation#fastForward(int)} uses the solver to skip regions that
+ * have settled.
+ */
+
+public class FlowSolver {
+    // What holds a building below its full rate
+    public enum Limit {
+        NONE,      // Not part of the item flow (power buildings), or a core
+        IDLE,      // Nothing to do: no ore, no usable inputs
+        STARVED,   // Waits for inputs
+        BLOCKED,   // Its output cannot take more
+        SATURATED  // Runs at full rate
+    }
+
+    private static final int DRILL = 0, FACTORY = 1, GENERATOR = 2, CORE = 3, LINE = 4;
+
+    private static final int K = ItemType.COUNT;
+    private static final int MAX_ITERATIONS = 200;
+    private static final double EPSILON = 1e-9;
+    private static final double PUSH_LIMIT = Simulation.TICKS_PER_SECOND; // One push per item type and tick
+
+    // --- GRAPH ---
+    private int nodeCount = 0;
+    private int[] kinds = new int[16];
+    private Building[] nodeBuildings = new Building[16]; // The head conveyor for lines
+    private TransportLine[] nodeLines = new TransportLine[16];
+    private final HashMap<Building, Integer> nodeOf = new HashMap<>(); // Conveyors map to their line's node
+    private final HashMap<TransportLine, Integer> lineNodes = new HashMap<>();
+
+    // Targets of node n are edgeTargets[edgeStart[n] .. edgeStart[n + 1]), in push order
+    private int[] edgeStart;
+    private int[] edgeTargets;
+    private int[] edgeItems;   // Bitmask (by ItemType ordinal) of the items the target takes over this edge
+    private int[] edgeSources;
+    private int[] edgeEntries; // Tile index a line is entered at, 0 = head
+    private int[] inEdges;     // Edges into node n are inEdges[inStart[n] .. inStart[n + 1]), in the order they are served
+    private int[] inStart;
+
+    private int[] order;    // Upstream first. Edges against this order (loops) deliver in the next pass
+    private int[] position; // Index of each node in order
+
+    // --- RATES (node * K + item) ---
+    private double[] in;       // Received
+    private double[] out;      // Sent
+    private double[] used;     // Consumed by crafting, burning or the core
+    private double[] room;     // Most it can take, given what is downstream
+    private double[] outRoom;  // Most its targets can take from it
+    private double[] edgeRoom; // Most the target of an edge can take over it (edge * K + item)
+    private double[] carry;    // Received over loop edges during the last pass
+    private double[] capacity; // Full rate per node: items mined, crafts, items moved or fuel burnt per second
+    private double[] rate;     // Actual rate in the same unit
+
+    private Limit[] limits;
+    private int[] regions;
+    private int regionCount = 0;
+    private double[] regionDelivery; // region * K + item
+
+    private int iterations = 0;
+    private long solveNanos = 0;
+
+    /**
+     * Builds the flow graph of the simulation's buildings and solves it.
+     */
+    public FlowSolver(Simulation sim) {
+        long start = System.nanoTime();
+        buildGraph(sim.getMap(), sim.getBuildings());
+        solve();
+        classify();
+        findRegions();
+        solveNanos = System.nanoTime() - start;
+    }
+
+    // --- GRAPH ---
+
+    private void buildGraph(Tile[][] map, List<Building> buildings) {
+        for (int i = 0; i < buildings.size(); i++) {
+            Building b = buildings.get(i);
+            if (b instanceof Conveyor) {
+                TransportLine line = ((Conveyor) b).line;
+                if (line == null) continue;
+
+                Integer node = lineNodes.get(line);
+                if (node == null) {
+                    node = addNode(LINE, line.getHead(), line);
+                    lineNodes.put(line, node);
+                }
+                nodeOf.put(b, node);
+            } else if (b instanceof Generator) {
+                nodeOf.put(b, addNode(GENERATOR, b, null));
+            } else if (b instanceof Factory) {
+                nodeOf.put(b, addNode(FACTORY, b, null));
+            } else if (b instanceof Drill) {
+                nodeOf.put(b, addNode(DRILL, b, null));
+            } else if (b instanceof Core) {
+                nodeOf.put(b, addNode(CORE, b, null));
+            }
+        }
+
+        // Edges, from each node's output edge (a line pushes out of its head tile)
+        edgeStart = new int[nodeCount + 1];
+        int[] targets = new int[nodeCount * 2 + 16];
+        int[] items = new int[targets.length];
+        int[] entries = new int[targets.length];
+        int edges = 0;
+
+        for (int n = 0; n < nodeCount; n++) {
+            edgeStart[n] = edges;
+            if (kinds[n] == CORE || kinds[n] == GENERATOR) continue; // Nothing to push
+
+            Building source = nodeBuildings[n];
+            for (int i = 0; i < source.getOutputEdgeLength(); i++) {
+                Building neighbor = source.getOutputNeighbor(map, i);
+                if (neighbor == null) continue;
+
+                Integer target = nodeOf.get(neighbor);
+                if (target == null || target == n) continue;
+
+                int mask = acceptedItems(source, neighbor);
+                if (mask == 0) continue;
+
+                // A building spanning several edge tiles is one target
+                boolean seen = false;
+                for (int e = edgeStart[n]; e < edges; e++) {
+                    if (targets[e] == target) seen = true;
+                }
+                if (seen) continue;
+
+                if (edges == targets.length) {
+                    targets = Arrays.copyOf(targets, edges * 2);
+                    items = Arrays.copyOf(items, edges * 2);
+                    entries = Arrays.copyOf(entries, edges * 2);
+                }
+                targets[edges] = target;
+                items[edges] = mask;
+                entries[edges] = (neighbor instanceof Conveyor) ? ((Conveyor) neighbor).lineIndex : 0;
+                edges++;
+            }
+        }
+        edgeStart[nodeCount] = edges;
+        edgeTargets = targets;
+        edgeItems = items;
+
+        edgeSources = new int[edges];
+        for (int n = 0; n < nodeCount; n++) {
+            for (int e = edgeStart[n]; e < edgeStart[n + 1]; e++) {
+                edgeSources[e] = n;
+            }
+        }
+        edgeEntries = entries;
+
+        sortNodes();
+    }
+
+    private int addNode(int kind, Building b, TransportLine line) {
+        if (nodeCount == kinds.length) {
+            kinds = Arrays.copyOf(kinds, nodeCount * 2);
+            nodeBuildings = Arrays.copyOf(nodeBuildings, nodeCount * 2);
+            nodeLines = Arrays.copyOf(nodeLines, nodeCount * 2);
+        }
+        kinds[nodeCount] = kind;
+        nodeBuildings[nodeCount] = b;
+        nodeLines[nodeCount] = line;
+        return nodeCount++;
+    }
+
+    // Items the target takes from the source, with the same checks as Building.addItem()
+    private static int acceptedItems(Building source, Building target) {
+        if (target instanceof Core) return (1 << K) - 1; // Ignores direction
+        if (source.facing == target.facing.opposite()) return 0;
+
+        int mask = 0;
+        for (int k = 0; k < K; k++) {
+            if (target.acceptsItem(ItemType.get(k))) mask |= 1 << k;
+        }
+        return mask;
+    }
+
+    // Upstream nodes first (Kahn's algorithm). Nodes on loops are appended in node order
+    private void sortNodes() {
+        order = new int[nodeCount];
+        position = new int[nodeCount];
+        int[] pending = new int[nodeCount];
+        for (int e = 0; e < edgeStart[nodeCount]; e++) {
+            pending[edgeTargets[e]]++;
+        }
+
+        boolean[] placed = new boolean[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int n = 0; n < nodeCount; n++) {
+            if (pending[n] == 0) {
+                order[tail++] = n;
+                placed[n] = true;
+            }
+        }
+
+        int next = 0; // Where to look for a loop node when the queue runs dry
+        while (tail < nodeCount) {
+            if (head == tail) {
+                while (placed[next]) next++;
+                order[tail++] = next;
+                placed[next] = true;
+            }
+
+            int n = order[head++];
+            for (int e = edgeStart[n]; e < edgeStart[n + 1]; e++) {
+                int t = edgeTargets[e];
+                if (--pending[t] == 0 && !placed[t]) {
+                    order[tail++] = t;
+                    placed[t] = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            position[order[i]] = i;
+        }
+        sortIncoming();
+    }
+
+    /**
+     * Orders the edges into each node by who is served first. A compressed line passes its gaps back to the tail, so
+     * the feeder nearest the tail gets the first free tile, and a line feeding the same tile goes before a building.
+     * Everything else is served upstream first.
+     */
+    private void sortIncoming() {
+        int edges = edgeStart[nodeCount];
+        inStart = new int[nodeCount + 1];
+        for (int e = 0; e < edges; e++) {
+            inStart[edgeTargets[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            inStart[n + 1] += inStart[n];
+        }
+
+        Integer[] sorted = new Integer[edges];
+        for (int e = 0; e < edges; e++) {
+            sorted[e] = e;
+        }
+        Arrays.sort(sorted, (a, b) -> {
+            if (edgeTargets[a] != edgeTargets[b]) return Integer.compare(edgeTargets[a], edgeTargets[b]);
+            if (edgeEntries[a] != edgeEntries[b]) return Integer.compare(edgeEntries[b], edgeEntries[a]);
+            boolean lineA = kinds[edgeSources[a]] == LINE, lineB = kinds[edgeSources[b]] == LINE;
+            if (lineA != lineB) return lineA ? -1 : 1;
+            return Integer.compare(position[edgeSources[a]], position[edgeSources[b]]);
+        });
+
+        inEdges = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            inEdges[e] = sorted[e];
+        }
+    }
+
+    // --- SOLVING ---
+
+    private void solve() {
+        int size = nodeCount * K;
+        in = new double[size];
+        out = new double[size];
+        used = new double[size];
+        room = new double[size];
+        outRoom = new double[size];
+        carry = new double[size];
+        capacity = new double[nodeCount];
+        rate = new double[nodeCount];
+
+        double[] lastIn = new double[size];
+        double[] lastOut = new double[size];
+        double[] lastFlow = new double[edgeStart[nodeCount] * K];
+        double[] flow = new double[lastFlow.length];
+        double[] offers = new double[lastFlow.length];
+        double[] supply = new double[size];
+        double[] roomLeft = new double[size];
+        double[] lineLeft = new double[nodeCount];
+        double[] nextCarry = new double[size];
+
+        // Start optimistic (everything arrives, everything is taken) and tighten from there
+        Arrays.fill(lastIn, Double.POSITIVE_INFINITY);
+        Arrays.fill(lastFlow, Double.POSITIVE_INFINITY);
+        Arrays.fill(room, Double.POSITIVE_INFINITY);
+        edgeRoom = new double[lastFlow.length];
+
+        for (int n = 0; n < nodeCount; n++) {
+            capacity[n] = capacityOf(n);
+        }
+
+        for (iterations = 1; iterations <= MAX_ITERATIONS; iterations++) {
+            // Backward: how much each node can take
+            for (int i = nodeCount - 1; i >= 0; i--) {
+                int n = order[i];
+                computeOutRoom(n, lastIn, lastFlow);
+                computeRoom(n, lastIn);
+            }
+
+            // Forward: each node takes the offers of its feeders, then offers what it makes to its targets
+            System.arraycopy(carry, 0, in, 0, size);
+            Arrays.fill(nextCarry, 0);
+            Arrays.fill(out, 0);
+            Arrays.fill(used, 0);
+            Arrays.fill(supply, 0);
+            Arrays.fill(flow, 0);
+            Arrays.fill(offers, 0);
+            System.arraycopy(room, 0, roomLeft, 0, size);
+            for (int n = 0; n < nodeCount; n++) {
+                lineLeft[n] = capacity[n];
+            }
+
+            for (int i = 0; i < nodeCount; i++) {
+                int n = order[i];
+
+                for (int j = inStart[n]; j < inStart[n + 1]; j++) {
+                    int e = inEdges[j];
+                    int source = edgeSources[e];
+                    if (position[source] >= i) continue; // Loop edge, delivered in the next pass
+
+                    // A line takes a mixed offer in proportion, as the items arrive interleaved
+                    double total = 0;
+                    for (int k = 0; k < K; k++) {
+                        total += Math.min(offers[e * K + k], roomLeft[n * K + k]);
+                    }
+                    if (total <= EPSILON) continue;
+                    double scale = (kinds[n] == LINE && total > lineLeft[n]) ? Math.max(0, lineLeft[n]) / total : 1;
+
+                    for (int k = 0; k < K; k++) {
+                        double f = Math.min(offers[e * K + k], roomLeft[n * K + k]) * scale;
+                        if (f <= EPSILON) continue;
+
+                        roomLeft[n * K + k] -= f;
+                        if (kinds[n] == LINE) lineLeft[n] -= f;
+                        flow[e * K + k] = f;
+                        in[n * K + k] += f;
+                        out[source * K + k] += f;
+                    }
+                }
+
+                produce(n, supply);
+
+                // First target first, each up to what it took last pass plus its unused room
+                for (int k = 0; k < K; k++) {
+                    double remaining = supply[n * K + k];
+                    for (int e = edgeStart[n]; e < edgeStart[n + 1] && remaining > EPSILON; e++) {
+                        if ((edgeItems[e] & (1 << k)) == 0) continue;
+
+                        double f = Math.min(remaining, edgeRoom[e * K + k]);
+                        if (f <= EPSILON) continue;
+                        remaining -= f;
+
+                        int t = edgeTargets[e];
+                        if (position[t] > i) {
+                            offers[e * K + k] = f;
+                        } else { // Loop edge: the target was already served this pass
+                            flow[e * K + k] = f;
+                            out[n * K + k] += f;
+                            nextCarry[t * K + k] += f;
+                        }
+                    }
+                }
+            }
+
+            double change = 0;
+            for (int j = 0; j < size; j++) {
+                change = Math.max(change, Math.abs(out[j] - lastOut[j]));
+                change = Math.max(change, Math.abs(in[j] - lastIn[j]));
+            }
+
+            double[] swap = lastFlow;
+            lastFlow = flow;
+            flow = swap;
+            System.arraycopy(in, 0, lastIn, 0, size);
+            System.arraycopy(out, 0, lastOut, 0, size);
+            System.arraycopy(nextCarry, 0, carry, 0, size);
+
+            if (change < EPSILON) break;
+        }
+
+        // Actual rates from the settled flows. A factory's full rate is that of the recipe it settled on
+        for (int n = 0; n < nodeCount; n++) {
+            rate[n] = rateOf(n);
+            if (kinds[n] == FACTORY && capacity[n] > 0 && activeRecipe(n) != null) capacity[n] = craftRate(n, activeRecipe(n));
+        }
+    }
+
+    private double capacityOf(int n) {
+        switch (kinds[n]) {
+            case DRILL: {
+                Drill drill = (Drill) nodeBuildings[n];
+                return drill.getResource() == null ? 0 : Math.min(drill.getMiningRate(), PUSH_LIMIT);
+            }
+            case FACTORY: {
+                Factory factory = (Factory) nodeBuildings[n];
+                FactoryDef def = factory.definition;
+                if (def.powerConsumption > 0 && !factory.hasPower()) return 0; // As powered right now
+                return def.possibleRecipes.isEmpty() ? 0 : def.craftingSpeed / def.possibleRecipes.get(0).craftTime;
+            }
+            case GENERATOR: {
+                Recipe fuel = ((Factory) nodeBuildings[n]).definition.possibleRecipes.get(0);
+                return 1.0 / fuel.craftTime;
+            }
+            case LINE:
+                return (double) Simulation.TICKS_PER_SECOND / (nodeLines[n].tiles[0].ticksPerTile + 1);
+            default:
+                return Double.POSITIVE_INFINITY;
+        }
+    }
+
+    // Crafts per second of one recipe at full speed
+    private double craftRate(int n, Recipe r) {
+        return ((Factory) nodeBuildings[n]).definition.craftingSpeed / r.craftTime;
+    }
+
+    // How much the targets can take from n: what they took last pass, plus any room nobody used
+    private void computeOutRoom(int n, double[] lastIn, double[] lastFlow) {
+        for (int k = 0; k < K; k++) {
+            double total = 0;
+            for (int e = edgeStart[n]; e < edgeStart[n + 1]; e++) {
+                if ((edgeItems[e] & (1 << k)) == 0) continue;
+                int t = edgeTargets[e];
+
+                double targetRoom = room[t * K + k];
+                double edge = targetRoom;
+                if (targetRoom != Double.POSITIVE_INFINITY) { // Not a core
+                    double unused = Math.max(0, targetRoom - lastIn[t * K + k]);
+                    edge = Math.min(targetRoom, lastFlow[e * K + k] + unused);
+                }
+                edgeRoom[e * K + k] = edge;
+                total += edge;
+            }
+            outRoom[n * K + k] = Math.min(total, PUSH_LIMIT);
+        }
+    }
+
+    private void computeRoom(int n, double[] lastIn) {
+        int base = n * K;
+        switch (kinds[n]) {
+            case CORE:
+                Arrays.fill(room, base, base + K, Double.POSITIVE_INFINITY);
+                return;
+
+            case DRILL:
+                Arrays.fill(room, base, base + K, 0);
+                return;
+
+            case LINE:
+                for (int k = 0; k < K; k++) {
+                    room[base + k] = Math.min(capacity[n], outRoom[base + k]);
+                }
+                return;
+
+            case GENERATOR: {
+                Arrays.fill(room, base, base + K, 0);
+                Recipe fuel = ((Factory) nodeBuildings[n]).definition.possibleRecipes.get(0);
+                for (int i = 0; i < fuel.inputItems.length; i++) {
+                    room[base + fuel.inputItems[i].ordinal()] = fuel.inputAmounts[i] * capacity[n];
+                }
+                return;
+            }
+
+            default: {
+                // An input is taken as fast as the best recipe using it can run, given the other inputs and the outputs
+                Arrays.fill(room, base, base + K, 0);
+                List<Recipe> recipes = ((Factory) nodeBuildings[n]).definition.possibleRecipes;
+                for (int r = 0; r < recipes.size(); r++) {
+                    Recipe recipe = recipes.get(r);
+                    double crafts = Math.min(craftRate(n, recipe), outputLimit(n, recipe));
+
+                    for (int i = 0; i < recipe.inputItems.length; i++) {
+                        double limit = crafts;
+                        for (int j = 0; j < recipe.inputItems.length; j++) {
+                            if (j != i) limit = Math.min(limit, lastIn[base + recipe.inputItems[j].ordinal()] / recipe.inputAmounts[j]);
+                        }
+
+                        int slot = base + recipe.inputItems[i].ordinal();
+                        room[slot] = Math.max(room[slot], limit * recipe.inputAmounts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Crafts per second the targets can take the outputs of
+    private double outputLimit(int n, Recipe recipe) {
+        double limit = Double.POSITIVE_INFINITY;
+        for (int o = 0; o < recipe.outputItems.length; o++) {
+            limit = Math.min(limit, outRoom[n * K + recipe.outputItems[o].ordinal()] / recipe.outputAmounts[o]);
+        }
+        return limit;
+    }
+
+    // Forward pass: fills supply[] with what n makes (the caller offers it to the targets) and used[] with what it consumes
+    private void produce(int n, double[] supply) {
+        int base = n * K;
+        switch (kinds[n]) {
+            case DRILL: {
+                ItemType resource = ((Drill) nodeBuildings[n]).getResource();
+                if (resource != null) supply[base + resource.ordinal()] = capacity[n];
+                return;
+            }
+
+            case CORE:
+                System.arraycopy(in, base, used, base, K);
+                return;
+
+            case LINE: {
+                double total = 0;
+                for (int k = 0; k < K; k++) {
+                    total += in[base + k];
+                }
+                double scale = (total > capacity[n]) ? capacity[n] / total : 1;
+                for (int k = 0; k < K; k++) {
+                    supply[base + k] = in[base + k] * scale;
+                }
+                return;
+            }
+
+            case GENERATOR: {
+                Recipe fuel = ((Factory) nodeBuildings[n]).definition.possibleRecipes.get(0);
+                double burns = capacity[n];
+                for (int i = 0; i < fuel.inputItems.length; i++) {
+                    burns = Math.min(burns, in[base + fuel.inputItems[i].ordinal()] / fuel.inputAmounts[i]);
+                }
+                for (int i = 0; i < fuel.inputItems.length; i++) {
+                    used[base + fuel.inputItems[i].ordinal()] = burns * fuel.inputAmounts[i];
+                }
+                return;
+            }
+
+            default: {
+                Recipe recipe = activeRecipe(n);
+                if (recipe == null) return;
+
+                double crafts = Math.min(craftRate(n, recipe), outputLimit(n, recipe));
+                for (int i = 0; i < recipe.inputItems.length; i++) {
+                    crafts = Math.min(crafts, in[base + recipe.inputItems[i].ordinal()] / recipe.inputAmounts[i]);
+                }
+                for (int i = 0; i < recipe.inputItems.length; i++) {
+                    used[base + recipe.inputItems[i].ordinal()] = crafts * recipe.inputAmounts[i];
+                }
+                for (int o = 0; o < recipe.outputItems.length; o++) {
+                    supply[base + recipe.outputItems[o].ordinal()] = crafts * recipe.outputAmounts[o];
+                }
+            }
+        }
+    }
+
+    // The first recipe whose inputs all arrive, like Factory.findMatchingRecipe()
+    private Recipe activeRecipe(int n) {
+        List<Recipe> recipes = ((Factory) nodeBuildings[n]).definition.possibleRecipes;
+        for (int r = 0; r < recipes.size(); r++) {
+            Recipe recipe = recipes.get(r);
+            boolean supplied = true;
+            for (int i = 0; i < recipe.inputItems.length; i++) {
+                if (in[n * K + recipe.inputItems[i].ordinal()] <= EPSILON) supplied = false;
+            }
+            if (supplied) return recipe;
+        }
+        return null;
+    }
+
+    private double rateOf(int n) {
+        int base = n * K;
+        double total = 0;
+        switch (kinds[n]) {
+            case DRILL:
+            case LINE:
+                for (int k = 0; k < K; k++) total += out[base + k];
+                return total;
+            case GENERATOR: {
+                Recipe fuel = ((Factory) nodeBuildings[n]).definition.possibleRecipes.get(0);
+                return used[base + fuel.inputItems[0].ordinal()] / fuel.inputAmounts[0];
+            }
+            case FACTORY: {
+                Recipe recipe = activeRecipe(n);
+                if (recipe == null) return 0;
+                return used[base + recipe.inputItems[0].ordinal()] / recipe.inputAmounts[0];
+            }
+            default:
+                for (int k = 0; k < K; k++) total += used[base + k];
+                return total;
+        }
+    }
+
+    // --- RESULTS ---
+
+    private void classify() {
+        limits = new Limit[nodeCount];
+        for (int n = 0; n < nodeCount; n++) {
+            limits[n] = limitOf(n);
+        }
+    }
+
+    private Limit limitOf(int n) {
+        if (kinds[n] == CORE) return Limit.NONE;
+        if (capacity[n] <= 0) return Limit.IDLE;
+        if (rate[n] >= capacity[n] * (1 - 1e-6)) return Limit.SATURATED;
+
+        int base = n * K;
+        switch (kinds[n]) {
+            case DRILL:
+                return Limit.BLOCKED;
+
+            case LINE: {
+                // Starved if everything that arrives moves on, blocked if the head target takes less
+                double arriving = 0;
+                for (int k = 0; k < K; k++) arriving += in[base + k];
+                if (arriving <= EPSILON) return Limit.IDLE;
+                return isOutputLimited(n) ? Limit.BLOCKED : Limit.STARVED;
+            }
+
+            case GENERATOR:
+                return rate[n] <= EPSILON ? Limit.IDLE : Limit.STARVED;
+
+            default: {
+                Recipe recipe = activeRecipe(n);
+                if (recipe == null) return Limit.IDLE;
+                return outputLimit(n, recipe) <= rate[n] * (1 + 1e-6) ? Limit.BLOCKED : Limit.STARVED;
+            }
+        }
+    }
+
+    private boolean isOutputLimited(int n) {
+        for (int k = 0; k < K; k++) {
+            if (out[n * K + k] > EPSILON && outRoom[n * K + k] <= out[n * K + k] * (1 + 1e-6)) return true;
+        }
+        return false;
+    }
+
+    // Connected components of the item flow, ignoring edge direction
+    private void findRegions() {
+        regions = new int[nodeCount];
+        Arrays.fill(regions, -1);
+        int[] stack = new int[nodeCount];
+
+        for (int startNode = 0; startNode < nodeCount; startNode++) {
+            if (regions[startNode] >= 0) continue;
+            int region = regionCount++;
+            int top = 0;
+            stack[top++] = startNode;
+            regions[startNode] = region;
+
+            while (top > 0) {
+                int n = stack[--top];
+                for (int e = edgeStart[n]; e < edgeStart[n + 1]; e++) {
+                    int t = edgeTargets[e];
+                    if (regions[t] < 0) {
+                        regions[t] = region;
+                        stack[top++] = t;
+                    }
+                }
+                for (int j = inStart[n]; j < inStart[n + 1]; j++) {
+                    int t = edgeSources[inEdges[j]];
+                    if (regions[t] < 0) {
+                        regions[t] = region;
+                        stack[top++] = t;
+                    }
+                }
+            }
+        }
+
+        regionDelivery = new double[regionCount * K];
+        for (int n = 0; n < nodeCount; n++) {
+            if (kinds[n] != CORE) continue;
+            for (int k = 0; k < K; k++) {
+                regionDelivery[regions[n] * K + k] += used[n * K + k];
+            }
+        }
+    }
+
+    // --- GETTERS ---
+
+    private int node(Building b) {
+        Integer node = nodeOf.get(b);
+        return node == null ? -1 : node;
+    }
+
+    // Items per second of the type leaving the building (for a conveyor: leaving its line)
+    public double getOutputRate(Building b, ItemType item) {
+        int n = node(b);
+        return n < 0 ? 0 : out[n * K + item.ordinal()];
+    }
+
+    // Items per second of the type the building consumes or, for a conveyor's line, carries
+    public double getInputRate(Building b, ItemType item) {
+        int n = node(b);
+        if (n < 0) return 0;
+        return kinds[n] == LINE ? out[n * K + item.ordinal()] : used[n * K + item.ordinal()];
+    }
+
+    // Fraction of its full rate the building runs at (0 for cores and power buildings)
+    public double getUtilization(Building b) {
+        int n = node(b);
+        if (n < 0 || kinds[n] == CORE || capacity[n] <= 0) return 0;
+        return Math.min(1, rate[n] / capacity[n]);
+    }
+
+    public Limit getLimit(Building b) {
+        int n = node(b);
+        return n < 0 ? Limit.NONE : limits[n];
+    }
+
+    /**
+     * Collects the buildings that hold back the base: running at full rate while a building feeding them is blocked.
+     * A line is reported by its head conveyor.
+     */
+    public void getBottlenecks(List<Building> result) {
+        for (int n = 0; n < nodeCount; n++) {
+            if (limits[n] != Limit.SATURATED) continue;
+            for (int j = inStart[n]; j < inStart[n + 1]; j++) {
+                if (limits[edgeSources[inEdges[j]]] == Limit.BLOCKED) {
+                    result.add(nodeBuildings[n]);
+                    break;
+                }
+            }
+        }
+    }
+
+    public List<Building> getBottlenecks() {
+        ArrayList<Building> result = new ArrayList<>();
+        getBottlenecks(result);
+        return result;
+    }
+
+    // Items per second of the type delivered to all cores
+    public double getDeliveryRate(ItemType item) {
+        double total = 0;
+        for (int r = 0; r < regionCount; r++) {
+            total += regionDelivery[r * K + item.ordinal()];
+        }
+        return total;
+    }
+
+    // Region of the building, or -1 if it is not part of the item flow
+    public int getRegion(Building b) {
+        int n = node(b);
+        return n < 0 ? -1 : regions[n];
+    }
+
+    public int getRegionCount() {
+        return regionCount;
+    }
+
+    // Items per second of the type delivered to the cores of a region
+    public double getDeliveryRate(int region, ItemType item) {
+        return regionDelivery[region * K + item.ordinal()];
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getSolveNanos() {
+        return solveNanos;
+    }
+}
@@ -1,29 +1,28 @@
 package com.ksu1012.factory;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class GameState {
     public static GameState instance = new GameState();
 
-    // Inventory
-    public HashMap<ItemType, Integer> resources = new HashMap<>();
+    // Inventory, indexed by ItemType ordinal (no boxing when the Core deposits items every tick)
+    private final int[] resources = new int[ItemType.COUNT];
 
-    public GameState() {
-        for (ItemType type : ItemType.values()) {
-            resources.put(type, 0);
-        }
-    }
+    // Incremented on every change, so the HUD only rebuilds its text when something actually changed
+    private int version = 0;
 
     public void addResource(ItemType type, int amount) {
-        resources.put(type, resources.getOrDefault(type, 0) + amount);
-        System.out.println("Inventory: " + type + " = " + resources.get(type)); // Temporary print statement
+        if (amount == 0) return;
+        resources[type.ordinal()] += amount;
+        version++;
     }
 
-    public boolean canAfford(HashMap<ItemType, Integer> cost) {
-        for (Map.Entry<ItemType, Integer> entry : cost.entrySet()) {
-            int owned = resources.getOrDefault(entry.getKey(), 0);
-            if (owned < entry.getValue()) {
+    public int getResource(ItemType type) {
+        return resources[type.ordinal()];
+    }
+
+    // Cost is indexed by ItemType ordinal (see BuildingDef.costAmounts)
+    public boolean canAfford(int[] cost) {
+        for (int i = 0; i < cost.length; i++) {
+            if (resources[i] < cost[i]) {
                 return false;
             }
         }
@@ -31,10 +30,14 @@ public class GameState {
     }
 
     // Deduct resources
-    public void payCost(HashMap<ItemType, Integer> cost) {
-        for (Map.Entry<ItemType, Integer> entry : cost.entrySet()) {
-            int current = resources.getOrDefault(entry.getKey(), 0);
-            resources.put(entry.getKey(), current - entry.getValue());
+    public void payCost(int[] cost) {
+        for (int i = 0; i < cost.length; i++) {
+            resources[i] -= cost[i];
         }
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
     }
 }
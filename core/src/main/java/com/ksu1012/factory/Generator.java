@@ -1,7 +1,5 @@
 package com.ksu1012.factory;
 
-import java.util.Map;
-
 public class Generator extends Factory {
 
     private float currentBurnTime = 0f;
@@ -15,18 +13,20 @@ public class Generator extends Factory {
     public void update(float delta, Tile[][] grid) {
         if (currentBurnTime <= 0) {
             // Not operating
-            this.powerProduction = 0f;
+            setPowerProduction(0f);
 
             // Get the fuel recipe from the definition
             // (GeneratorDef passes it as the first recipe in the list)
             Recipe fuelRecipe = ((FactoryDef)getDefinition()).possibleRecipes.get(0);
 
-            if (hasFuel(fuelRecipe)) {
+            if (canCraft(0)) {
                 consumeFuel(fuelRecipe);
 
                 // Add the time!
                 this.currentBurnTime += fuelRecipe.craftTime;
                 this.maxBurnTime = fuelRecipe.craftTime; // For visual bar
+            } else {
+                sleep(); // Woken when fuel arrives
             }
         }
 
@@ -34,27 +34,40 @@ public class Generator extends Factory {
         if (currentBurnTime > 0) {
             currentBurnTime -= delta;
 
-            this.powerProduction = ((GeneratorDef) definition).powerOutput;
+            setPowerProduction(((GeneratorDef) definition).powerOutput);
+
+            // Until the fuel runs out, updates only count down the burn time
+            if (currentBurnTime > 0) sleepUntil(refuelTick());
         }
     }
 
-    private boolean hasFuel(Recipe r) {
-        for (Map.Entry<ItemType, Integer> entry : r.inputs.entrySet()) {
-            if (getItemCount(entry.getKey()) < entry.getValue()) {
-                return false;
-            }
+    // First tick whose update finds the burn time used up, replaying the float steps of update()
+    private long refuelTick() {
+        float t = currentBurnTime;
+        long tick = chunks.getTick();
+        do {
+            t -= Simulation.TICK_DELTA;
+            tick++;
+        } while (t > 0);
+        return tick + 1;
+    }
+
+    @Override
+    protected void onWake(int skippedTicks) {
+        // Replay the burn of the skipped ticks (none if it slept without fuel)
+        for (int i = 0; i < skippedTicks && currentBurnTime > 0; i++) {
+            currentBurnTime -= Simulation.TICK_DELTA;
         }
+    }
+
+    @Override
+    public boolean generatesPower() {
         return true;
     }
 
     private void consumeFuel(Recipe r) {
-        for (Map.Entry<ItemType, Integer> entry : r.inputs.entrySet()) {
-            ItemType type = entry.getKey();
-            int amount = entry.getValue();
-
-            inventory.put(type, inventory.get(type) - amount);
-            if (inventory.get(type) <= 0) inventory.remove(type);
-            currentTotalItemCount -= amount;
+        for (int i = 0; i < r.inputItems.length; i++) {
+            removeInternalItem(r.inputItems[i], r.inputAmounts[i]);
         }
     }
 }
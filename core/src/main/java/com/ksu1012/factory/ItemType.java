@@ -11,8 +11,18 @@ public enum ItemType {
     COAL(new Color(0.05f, 0.05f, 0.05f, 1f));
 
     public final Color color;
+    public final String displayName;
+
+    // Cached, values() clones the array on every call
+    private static final ItemType[] VALUES = values();
+    public static final int COUNT = VALUES.length;
 
     ItemType(Color color) {
         this.color = color;
+        this.displayName = DisplayNames.format(name());
+    }
+
+    public static ItemType get(int ordinal) {
+        return VALUES[ordinal];
     }
 }
@@ -1,6 +1,7 @@
 package com.ksu1012.factory;
 
 import com.badlogic.gdx.*;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap;
@@ -23,17 +24,19 @@ import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
 
 /**
  * The core Engine class managing the Game Loop.
  * <p>
  * Responsibilities:
  * <ul>
- *   <li><b>Render Pipeline:</b> Manages the SpriteBatch and Frustum Culling logic to render only visible tiles.</li>
- *   <li><b>Simulation Loop:</b> Decouples game logic updates from rendering frames.</li>
+ *   <li><b>Render Pipeline:</b> Manages the SpriteBatch and Frustum Culling logic to render only visible tiles.
+ *   The ground comes from per-chunk textures baked by {@link TerrainRenderer}.</li>
+ *   <li><b>Simulation Loop:</b> Feeds frame time into the fixed-timestep {@link Simulation}, decoupling game logic from rendering frames.</li>
  *   <li><b>Input Handling:</b> Multiplexes UI events (Scene2D) and World events (Placement/Camera).</li>
  * </ul>
  */
@@ -43,7 +46,12 @@ public class Main extends ApplicationAdapter {
 
     // Replaced ShapeRenderer with SpriteBatch
     private com.badlogic.gdx.graphics.g2d.SpriteBatch batch;
-    private com.badlogic.gdx.graphics.Texture whitePixel;
+    private BuildingAtlas atlas; // Building sprites and the white texel, all on one texture page
+    private com.badlogic.gdx.graphics.g2d.TextureRegion whitePixel;
+    private TerrainRenderer terrainRenderer; // Ground layer baked into one texture per chunk
+    private PowerLineCache powerLines; // Power line edges, rebuilt only when the grid changes
+    private MinimapRenderer minimap; // One texel per tile, used when zoomed far out
+    private ConveyorItemRenderer beltItems; // Instanced belt items. Null without GL30, then the batch draws them
 
     // --- GAME SETTINGS ---
     private final int TILE_SIZE = 32;
@@ -51,28 +59,39 @@ public class Main extends ApplicationAdapter {
     private final int MAP_HEIGHT = 500;
 
     // --- DATA LAYER ---
-    private Tile[][] map; // The actual data storage
-    private ArrayList<Building> buildings = new ArrayList<>(); // Optimization list
-    private PowerSystem powerSystem = new PowerSystem();
+    private Simulation simulation; // Owns the map, buildings and power, ticks at a fixed rate
+    private Tile[][] map; // Shortcut to simulation.getMap()
+    private TickProfiler profiler; // Shared with the simulation, so ticks and frames show up in one overlay
 
     // Selection state
     private Direction currentFacing = Direction.NORTH;
     private BuildingType selectedBuilding = null;
 
     // --- VISUAL SETTINGS ---
-    private final Color CORE_COLOR = new Color(0.8f, 0.2f, 0.8f, 1f);
     private final Color HIGHLIGHT_COLOR = new Color(1f, 1f, 1f, 0.3f); // Semi-transparent white
-    private final Color DRILL_COLOR = new Color(0.4f, 0.8f, 0.4f, 1f); // Green
-    private final Color FACTORY_COLOR = new Color(0.9f, 0.6f, 0.2f, 1f); // Orange
     private final Color POWER_LINE_COLOR = new Color(1.0f, 0.9f, 0.4f, 0.6f);
-    private final Color POWER_POLE_COLOR = new Color(0.7f, 0.7f, 0.5f, 1f);
+
+    // --- LEVEL OF DETAIL (screen pixels per tile) ---
+    private final float LOD_DECORATION_PIXELS = 12f; // Below this, buildings are drawn as plain boxes
+    private final float LOD_MAP_PIXELS = 6f; // Below this, the map texture replaces terrain and buildings
+    private final float MAX_ZOOM = 16f; // Zoomed all the way out, a tile is 2 pixels
+
+    // --- TIME SCALE ---
+    private final long TICK_BUDGET_NANOS = 12_000_000L; // Leaves room for a 60 fps frame while the simulation keeps up
+    private final long BEHIND_TICK_BUDGET_NANOS = 50_000_000L; // When behind, ticks get most of the time and rendering drops to ~20 fps
 
     // --- UI ---
     private float uiTimer = 0f;
     private Stage uiStage;
     private Label resourceLabel;
     private Label selectionLabel;
+    private Label speedLabel;
+    private Label profilerLabel; // Performance overlay, toggled with F3
     private StringBuilder hudString = new StringBuilder();
+    private int shownResourceVersion = -1; // GameState version the resource label was built from
+    private boolean selectionDirty = true; // Selection or rotation changed since the label was built
+    private TimeScale shownTimeScale = null; // Time scale and behind state the speed label was built from
+    private boolean shownBehind = false;
     private HashMap<BuildingType, Button> buildingButtons = new HashMap<>();
 
     // --- PHYSICS SETTINGS ---
@@ -86,8 +105,22 @@ public class Main extends ApplicationAdapter {
 
     // Mouse Interaction
     private Vector3 mousePos = new Vector3(); // Vector3 because camera uses 3D space (Z-axis)
+    private Vector2 stagePos = new Vector2(); // Reused for UI hit-testing
     private Tile hoveredTile = null;
 
+    // Fraction of a tick since the last simulation tick, set at the start of every draw
+    private float renderAlpha = 0f;
+
+    // Buildings overlapping the view, refilled every frame
+    private final ArrayList<Building> visibleBuildings = new ArrayList<>();
+
+    // Visible buildings bucketed by BuildingType ordinal, so each type is drawn in one run.
+    // The last bucket holds buildings without a type
+    private final ArrayList<ArrayList<Building>> buildingsByType = new ArrayList<>();
+
+    // Placement preview, only recreated when the selected type changes
+    private Building ghostBuilding = null;
+
     @Override
     public void create() {
         // TEMP: START WITH RESOURCES
@@ -100,45 +133,31 @@ public class Main extends ApplicationAdapter {
         // New Rendering system
         batch = new com.badlogic.gdx.graphics.g2d.SpriteBatch();
 
-        // 1x1 white pixel
-        com.badlogic.gdx.graphics.Pixmap pixmap = new com.badlogic.gdx.graphics.Pixmap(1, 1, com.badlogic.gdx.graphics.Pixmap.Format.RGBA8888);
-        pixmap.setColor(Color.WHITE);
-        pixmap.fill();
-        whitePixel = new com.badlogic.gdx.graphics.Texture(pixmap);
-        pixmap.dispose();
+        // Building sprites and the 1x1 white pixel
+        atlas = new BuildingAtlas(TILE_SIZE);
+        whitePixel = atlas.getWhite();
 
         // --- MAP GENERATION ---
-        WorldGenerator worldGenerator = new WorldGenerator(MAP_WIDTH, MAP_HEIGHT);
-        this.map = worldGenerator.generate();
-
-        int centerX = MAP_WIDTH / 2;
-        int centerY = MAP_HEIGHT / 2;
-
-        // Clear an area in the center of the map (where the core will be)
-        int clearRadius = 5;
-        for (int x = centerX - clearRadius; x <= centerX + clearRadius; x++) {
-            for (int y = centerY - clearRadius; y <= centerY + clearRadius; y++) {
-                if (x >= 0 && x < MAP_WIDTH && y >= 0 && y < MAP_HEIGHT) {
-                    map[x][y].terrain = TerrainType.DIRT;
-                    map[x][y].resource = null;
-                    map[x][y].building = null;
-                }
-            }
-        }
+        simulation = new Simulation(MAP_WIDTH, MAP_HEIGHT);
+        simulation.setParallel(true); // Same results as serial, spreads building updates over all cores
+        this.map = simulation.getMap();
+        this.profiler = simulation.getProfiler();
 
         // Spawn core
-        Core core = new Core(centerX - 1, centerY - 1, new CoreDef(3, 3));
-        buildings.add(core);
-
-        for (int i = -1; i < core.width - 1; i++) {
-            for (int j = -1; j < core.height - 1; j++) {
-                if (centerX + i < MAP_WIDTH && centerY + j < MAP_HEIGHT) {
-                    map[centerX + i][centerY + j].building = core;
+        simulation.spawnCore();
+
+        // Bake terrain after the core area was cleared
+        terrainRenderer = new TerrainRenderer(map, TILE_SIZE);
+        powerLines = new PowerLineCache(MAP_WIDTH, MAP_HEIGHT);
+        minimap = new MinimapRenderer(map);
+        simulation.addBuildingListener(minimap);
+        if (ConveyorItemRenderer.isSupported()) {
+            beltItems = new ConveyorItemRenderer(TILE_SIZE);
+            simulation.addBuildingListener(beltItems);
+        }
 
-                    map[centerX + i][centerY + j].terrain = TerrainType.DIRT;
-                    map[centerX + i][centerY + j].resource = null;
-                }
-            }
+        for (int i = 0; i <= BuildingType.values().length; i++) {
+            buildingsByType.add(new ArrayList<>());
         }
 
         // --- UI SETUP ---
@@ -185,11 +204,28 @@ public class Main extends ApplicationAdapter {
 
         rootTable.add(resourceLabel).pad(10).left();
         rootTable.row();
+        speedLabel = new Label("", style);
+        speedLabel.setTouchable(Touchable.disabled);
+
         rootTable.add(selectionLabel).pad(10).left();
+        rootTable.row();
+        rootTable.add(speedLabel).pad(10).left();
         rootTable.row().expandY();
 
         uiStage.addActor(rootTable);
 
+        // Performance overlay in the top right corner, hidden until F3 is pressed
+        Table profilerTable = new Table();
+        profilerTable.setFillParent(true);
+        profilerTable.top().right();
+        profilerTable.setTouchable(Touchable.disabled);
+
+        profilerLabel = new Label("", style);
+        profilerLabel.setVisible(false);
+        profilerTable.add(profilerLabel).pad(10).right();
+
+        uiStage.addActor(profilerTable);
+
         // Create the Toolbar Table
         Table toolbarTable = new Table();
         toolbarTable.bottom(); // Align to bottom of screen
@@ -201,8 +237,7 @@ public class Main extends ApplicationAdapter {
             if (type == BuildingType.CORE) continue;
 
             // Create Button
-            String name = type.name().substring(0, 1) + type.name().substring(1).toLowerCase();
-            TextButton button = new TextButton(name, buttonStyle);
+            TextButton button = new TextButton(type.displayName, buttonStyle);
 
             // Add Button to HashMap
             buildingButtons.put(type, button);
@@ -212,9 +247,9 @@ public class Main extends ApplicationAdapter {
                 public void clicked(com.badlogic.gdx.scenes.scene2d.InputEvent event, float x, float y) {
                     // Deselect building if clicking on currently selected
                     if (selectedBuilding == type) {
-                        selectedBuilding = null;
+                        selectBuilding(null);
                     } else { // Else select another building
-                        selectedBuilding = type;
+                        selectBuilding(type);
                     }
                 }
             });
@@ -232,7 +267,7 @@ public class Main extends ApplicationAdapter {
             public boolean scrolled(float amountX, float amountY) {
                 float zoomSpeed = 0.1f;
                 camera.zoom += amountY * camera.zoom * zoomSpeed;
-                camera.zoom = MathUtils.clamp(camera.zoom, 0.2f, 4.0f);
+                camera.zoom = MathUtils.clamp(camera.zoom, 0.2f, MAX_ZOOM);
                 return true;
             }
         });
@@ -252,24 +287,36 @@ public class Main extends ApplicationAdapter {
 
     @Override
     public void render() {
-        float deltaTime = Math.min(Gdx.graphics.getDeltaTime(), 0.1f); // Only do up to 0.1s of simulation per frame
+        float frameTime = Gdx.graphics.getDeltaTime();
+        float deltaTime = Math.min(frameTime, 0.1f); // Only do up to 0.1s of camera movement per frame
+
+        profiler.begin(TickProfiler.Section.FRAME);
 
-        // Update logic
+        // Update input and camera
         update(deltaTime);
 
+        // Run the fixed-rate simulation ticks that fit into this frame. When fast-forwarding can't keep up,
+        // the ticks get a larger budget so fewer frames are rendered instead of the simulation falling behind
+        long tickBudget = simulation.isBehind() ? BEHIND_TICK_BUDGET_NANOS : TICK_BUDGET_NANOS;
+        simulation.advance(frameTime, tickBudget);
+
         // Draw visuals
         draw();
 
         // Draw UI
+        profiler.begin(TickProfiler.Section.DRAW_UI);
         uiTimer += deltaTime;
         if (uiTimer >= 0.1f) {
             updateUI();
             uiTimer = 0f;
         }
         uiStage.draw();
+        profiler.end(TickProfiler.Section.DRAW_UI);
+
+        profiler.end(TickProfiler.Section.FRAME);
     }
 
-    // Handles all game logic, physics, and input.
+    // Handles camera physics and input. The simulation itself is ticked by Simulation.advance()
     private void update(float delta) {
         updatePosition(delta);
 
@@ -295,19 +342,37 @@ public class Main extends ApplicationAdapter {
             }
         }
 
+        // Performance overlay toggle (F3) and CSV export of the current window (F4)
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            profiler.setEnabled(!profiler.isEnabled());
+            profilerLabel.setVisible(profiler.isEnabled());
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4) && profiler.isEnabled()) {
+            exportProfile();
+        }
+
+        // Simulation speed (',' slower, '.' faster)
+        if (Gdx.input.isKeyJustPressed(Input.Keys.PERIOD)) {
+            simulation.setTimeScale(simulation.getTimeScale().faster());
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.COMMA)) {
+            simulation.setTimeScale(simulation.getTimeScale().slower());
+        }
+
         // Deselect Building if esc is pressed
         if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
-            selectedBuilding = null;
+            selectBuilding(null);
         }
 
         // --- ROTATION ---
         if (Gdx.input.isKeyJustPressed(Input.Keys.R)) {
             currentFacing = currentFacing.next(); // Rotate Clockwise
+            selectionDirty = true;
         }
 
         // --- PLACEMENT ---
         if (Gdx.input.isButtonJustPressed(Input.Buttons.LEFT) && selectedBuilding != null) {
-            Vector2 stagePos = uiStage.screenToStageCoordinates(new Vector2(Gdx.input.getX(), Gdx.input.getY()));
+            uiStage.screenToStageCoordinates(stagePos.set(Gdx.input.getX(), Gdx.input.getY()));
 
             // Ignore Button clicks
             if (uiStage.hit(stagePos.x, stagePos.y, true) != null) {
@@ -322,25 +387,15 @@ public class Main extends ApplicationAdapter {
                     newBuilding.setFacing(currentFacing);
 
                     // Check location validity
-                    boolean isSpaceValid = canPlaceBuilding(gridX, gridY, newBuilding);
+                    boolean isSpaceValid = simulation.canPlaceBuilding(newBuilding);
 
                     // Check if the building can be afforded
-                    boolean canAfford = GameState.instance.canAfford(selectedBuilding.def.cost);
+                    boolean canAfford = GameState.instance.canAfford(selectedBuilding.def.costAmounts);
 
                     if (isSpaceValid && canAfford) {
-                        GameState.instance.payCost(selectedBuilding.def.cost);
+                        GameState.instance.payCost(selectedBuilding.def.costAmounts);
 
-                        newBuilding.facing = currentFacing;
-                        buildings.add(newBuilding);
-                        powerSystem.rebuildNetworks(buildings);
-
-                        for (int i = 0; i < newBuilding.width; i++) {
-                            for (int j = 0; j < newBuilding.height; j++) {
-                                map[gridX + i][gridY + j].building = newBuilding;
-                            }
-                        }
-
-                        newBuilding.onPlaced(map);
+                        simulation.addBuilding(newBuilding);
                         System.out.println("Placed " + selectedBuilding.name());
                     }
                 }
@@ -350,46 +405,9 @@ public class Main extends ApplicationAdapter {
         // Remove a building upon right-clicking
         if (Gdx.input.isButtonJustPressed(Input.Buttons.RIGHT)) {
             if (hoveredTile != null && hoveredTile.building != null) {
-                Building b = hoveredTile.building;
-                buildings.remove(b);
-                powerSystem.rebuildNetworks(buildings);
-
-                // Clear the whole footprint
-                for (int i = 0; i < b.width; i++) {
-                    for (int j = 0; j < b.height; j++) {
-                        if (b.x + i < MAP_WIDTH && b.y + j < MAP_HEIGHT) {
-                            map[b.x + i][b.y + j].building = null;
-                        }
-                    }
-                }
+                simulation.removeBuilding(hoveredTile.building);
             }
         }
-
-        // Update all buildings
-        for (Building b : buildings) {
-            b.update(delta, map);
-        }
-
-        powerSystem.update(delta);
-    }
-
-    // Check against bounds, occupancy, and Building's own terrain rules
-    private boolean canPlaceBuilding(int startX, int startY, Building building) {
-        if (startX < 0 || startY < 0 || startX + building.width > MAP_WIDTH || startY + building.height > MAP_HEIGHT) {
-            return false;
-        }
-
-        for (int i = 0; i < building.width; i++) {
-            for (int j = 0; j < building.height; j++) {
-                Tile t = map[startX + i][startY + j];
-                // Occupied check
-                if (t.building != null) return false;
-
-                // Terrain check
-                if (!building.canBuildOn(t.terrain)) return false;
-            }
-        }
-        return true;
     }
 
     private void updatePosition(float delta) {
@@ -400,78 +418,102 @@ public class Main extends ApplicationAdapter {
         camera.update();
     }
 
+    // Changes the selection and syncs the toolbar buttons. Only place that writes selectedBuilding
+    private void selectBuilding(BuildingType type) {
+        if (type == selectedBuilding) return;
+
+        if (selectedBuilding != null) buildingButtons.get(selectedBuilding).setChecked(false);
+        if (type != null) buildingButtons.get(type).setChecked(true);
+
+        selectedBuilding = type;
+        selectionDirty = true;
+    }
+
+    // Rebuilds label text only when the underlying values changed, since every setText triggers a relayout
     private void updateUI() {
         // Update Resources
-        hudString.setLength(0); // Clear the buffer
-        hudString.append("[RESOURCES]\n");
-
-        if (GameState.instance != null) {
-            for (Map.Entry<ItemType, Integer> entry : GameState.instance.resources.entrySet()) {
-                // Currently showing all resources (even if 0)
-                String name = formatEnumName(entry.getKey().name());
-                hudString.append(name)
+        if (GameState.instance != null && GameState.instance.getVersion() != shownResourceVersion) {
+            shownResourceVersion = GameState.instance.getVersion();
+
+            hudString.setLength(0); // Clear the buffer
+            hudString.append("[RESOURCES]\n");
+
+            // Currently showing all resources (even if 0)
+            for (int i = 0; i < ItemType.COUNT; i++) {
+                ItemType type = ItemType.get(i);
+                hudString.append(type.displayName)
                     .append(": ")
-                    .append(entry.getValue())
+                    .append(GameState.instance.getResource(type))
                     .append("\n");
             }
+            resourceLabel.setText(hudString);
         }
-        resourceLabel.setText(hudString);
 
         // Update Selection
-        hudString.setLength(0); // Clear buffer again for new label
-
-        if (selectedBuilding != null) {
-            // Name and Rotation
-            hudString.append("SELECTED: ").append(formatEnumName(selectedBuilding.name())).append("\n");
-            hudString.append("ROTATION: ").append(currentFacing).append("\n");
-
-            // Cost List
-            hudString.append("COST:\n");
-            if (selectedBuilding.def.cost.isEmpty()) {
-                hudString.append(" Free");
-            } else {
-                for (Map.Entry<ItemType, Integer> entry : selectedBuilding.def.cost.entrySet()) {
+        if (selectionDirty) {
+            selectionDirty = false;
+            hudString.setLength(0); // Clear buffer again for new label
+
+            if (selectedBuilding != null) {
+                // Name and Rotation
+                hudString.append("SELECTED: ").append(selectedBuilding.displayName).append("\n");
+                hudString.append("ROTATION: ").append(currentFacing).append("\n");
+
+                // Cost List
+                hudString.append("COST:\n");
+                int[] cost = selectedBuilding.def.costAmounts;
+                boolean free = true;
+                for (int i = 0; i < cost.length; i++) {
+                    if (cost[i] == 0) continue;
+                    free = false;
                     hudString.append(" - ")
-                        .append(formatEnumName(entry.getKey().name()))
+                        .append(ItemType.get(i).displayName)
                         .append(": ")
-                        .append(entry.getValue())
+                        .append(cost[i])
                         .append("\n");
                 }
+                if (free) hudString.append(" Free");
+            } else {
+                // Nothing selected
+                hudString.append("SELECTED: [None]");
             }
-        } else {
-            // Nothing selected
-            hudString.append("SELECTED: [None]");
+            selectionLabel.setText(hudString);
         }
-        selectionLabel.setText(hudString);
 
-        // Sync Toolbar Buttons
-        // Highlight only the selected Building
-        for (Map.Entry<BuildingType, com.badlogic.gdx.scenes.scene2d.ui.Button> entry : buildingButtons.entrySet()) {
-            BuildingType type = entry.getKey();
-            com.badlogic.gdx.scenes.scene2d.ui.Button btn = entry.getValue();
+        // Update Speed
+        if (simulation.getTimeScale() != shownTimeScale || simulation.isBehind() != shownBehind) {
+            shownTimeScale = simulation.getTimeScale();
+            shownBehind = simulation.isBehind();
 
-            // Set Checked only if it matches the current selection
-            if (type == selectedBuilding) {
-                btn.setChecked(true);
-            } else {
-                btn.setChecked(false);
-            }
+            hudString.setLength(0);
+            hudString.append("SPEED: ").append(shownTimeScale.label);
+            // At Max the simulation is always "behind", only worth showing for fixed speeds
+            if (shownBehind && !shownTimeScale.isUnlimited()) hudString.append(" (behind)");
+            speedLabel.setText(hudString);
+        }
+
+        // Update Profiler overlay
+        if (profiler.isEnabled()) {
+            hudString.setLength(0);
+            profiler.appendSummary(hudString);
+            hudString.append("Awake: ").append(simulation.getChunks().getAwakeCount())
+                .append(" / ").append(simulation.getBuildings().size()).append('\n');
+            profilerLabel.setText(hudString);
         }
 
         // Update Stage logic
         uiStage.act();
     }
 
-    // Helper to format text
-    private String formatEnumName(String name) {
-        String[] words = name.toLowerCase().split("_");
-        StringBuilder sb = new StringBuilder();
-        for (String word : words) {
-            sb.append(Character.toUpperCase(word.charAt(0)))
-                .append(word.substring(1))
-                .append(" ");
+    // Writes the profiler histograms to a CSV file in the working directory
+    private void exportProfile() {
+        FileHandle file = Gdx.files.local("profile-" + System.currentTimeMillis() + ".csv");
+        try (Writer writer = file.writer(false)) {
+            profiler.writeCsv(writer);
+            System.out.println("Profile exported to " + file.path());
+        } catch (IOException e) {
+            System.err.println("Could not export profile: " + e.getMessage());
         }
-        return sb.toString().trim();
     }
 
     // Handles rendering
@@ -496,39 +538,79 @@ public class Main extends ApplicationAdapter {
         endX = Math.min(MAP_WIDTH, endX);
         endY = Math.min(MAP_HEIGHT, endY);
 
-        // Render visible tiles
-        for (int x = startX; x < endX; x++) {
-            for (int y = startY; y < endY; y++) {
-                drawGround(x, y);
+        // Time between the last tick and the next one, for smooth item movement
+        renderAlpha = simulation.getAlpha();
+
+        // Level of detail depends on how many screen pixels a tile covers
+        float tilePixels = TILE_SIZE / camera.zoom;
+        boolean mapView = tilePixels < LOD_MAP_PIXELS;
+
+        if (mapView) {
+            // Far out: the whole map is one texture with a texel per tile
+            profiler.begin(TickProfiler.Section.DRAW_GROUND);
+            minimap.draw(batch, TILE_SIZE);
+            profiler.end(TickProfiler.Section.DRAW_GROUND);
+        } else {
+            // Render visible ground from the cached chunk textures
+            profiler.begin(TickProfiler.Section.DRAW_GROUND);
+            terrainRenderer.draw(batch, startX, startY, endX, endY);
+            profiler.end(TickProfiler.Section.DRAW_GROUND);
+
+            // Render Buildings
+            profiler.begin(TickProfiler.Section.DRAW_BUILDINGS);
+            boolean decorations = tilePixels >= LOD_DECORATION_PIXELS;
+
+            // Only the chunks overlapping the view are scanned
+            visibleBuildings.clear();
+            simulation.getChunks().queryRect(startX, startY, endX, endY, visibleBuildings);
+            bucketByType();
+
+            // All bodies first, one type at a time, then the decorations on top
+            batch.setColor(Color.WHITE);
+            for (int t = 0; t < buildingsByType.size(); t++) {
+                ArrayList<Building> bucket = buildingsByType.get(t);
+                for (int i = 0; i < bucket.size(); i++) {
+                    drawBody(bucket.get(i));
+                }
             }
-        }
 
-        // Render Buildings
-        for (Building b : buildings) {
-            float bx = b.x * TILE_SIZE;
-            float by = b.y * TILE_SIZE;
-            if (bx + (b.width * TILE_SIZE) > camera.position.x - viewWidth / 2 &&
-                bx < camera.position.x + viewWidth / 2 &&
-                by + (b.height * TILE_SIZE) > camera.position.y - viewHeight / 2 &&
-                by < camera.position.y + viewHeight / 2) {
+            if (decorations) {
+                for (int t = 0; t < buildingsByType.size(); t++) {
+                    ArrayList<Building> bucket = buildingsByType.get(t);
+                    for (int i = 0; i < bucket.size(); i++) {
+                        drawDecorations(bucket.get(i));
+                    }
+                }
 
-                drawBuilding(b);
+                // Belt items in one instanced call, outside the batch
+                if (beltItems != null) {
+                    beltItems.update(simulation.getChunks(), simulation.getTickCount(), startX, startY, endX, endY);
+                    batch.end();
+                    beltItems.draw(camera.combined, renderAlpha);
+                    batch.begin();
+                }
             }
+            profiler.end(TickProfiler.Section.DRAW_BUILDINGS);
         }
 
         // Preview drawing (Ghost Layer)
         if (selectedBuilding != null && hoveredTile != null && hoveredTile.building == null) {
 
-            // Create temporary ghost building
-            Building temp = selectedBuilding.create(hoveredTile.x, hoveredTile.y);
+            // Reuse the ghost building while the selection stays the same
+            if (ghostBuilding == null || ghostBuilding.getDefinition() != selectedBuilding.def) {
+                ghostBuilding = selectedBuilding.create(hoveredTile.x, hoveredTile.y);
+            }
+            Building temp = ghostBuilding;
 
             if (temp != null) {
-                // Set orientation
+                // Move and orient
+                temp.x = hoveredTile.x;
+                temp.y = hoveredTile.y;
                 temp.setFacing(currentFacing);
 
                 // Check both conditions
-                boolean isSpaceValid = canPlaceBuilding(hoveredTile.x, hoveredTile.y, temp);
-                boolean canAfford = GameState.instance.canAfford(selectedBuilding.def.cost);
+                boolean isSpaceValid = simulation.canPlaceBuilding(temp);
+                boolean canAfford = GameState.instance.canAfford(selectedBuilding.def.costAmounts);
 
                 Gdx.gl.glEnable(Gdx.gl.GL_BLEND);
 
@@ -567,105 +649,69 @@ public class Main extends ApplicationAdapter {
         }
 
         // --- DRAW POWER LINES ---
-        // Iterate through all active power networks
-        if (powerSystem != null) {
-            for (PowerNetwork net : powerSystem.getNetworks()) {
-                // Compare every building in the network to every other building
-                // (i + 1 optimization prevents drawing the same line twice)
-                for (int i = 0; i < net.members.size(); i++) {
-                    Building a = net.members.get(i);
-
-                    for (int j = i + 1; j < net.members.size(); j++) {
-                        Building b = net.members.get(j);
-
-                        float axGrid = a.x + (a.width / 2f);
-                        float ayGrid = a.y + (a.height / 2f);
-                        float bxGrid = b.x + (b.width / 2f);
-                        float byGrid = b.y + (b.height / 2f);
-
-                        float dist = Vector2.dst(axGrid, ayGrid, bxGrid, byGrid);
-                        float range = Math.max(a.getConnectionRadius(), b.getConnectionRadius());
-
-                        if (dist <= range) {
-                            float axPixel = axGrid * TILE_SIZE;
-                            float ayPixel = ayGrid * TILE_SIZE;
-                            float bxPixel = bxGrid * TILE_SIZE;
-                            float byPixel = byGrid * TILE_SIZE;
-                            drawLine(axPixel, ayPixel, bxPixel, byPixel, 2f, POWER_LINE_COLOR);
-                        }
-                    }
-                }
-            }
+        // Edges are cached until the power grid changes, and culled by chunk
+        profiler.begin(TickProfiler.Section.DRAW_POWER_LINES);
+        powerLines.update(simulation.getPowerSystem());
+        int lineCount = mapView ? 0 : powerLines.cull(startX, startY, endX, endY);
+        float[] lines = powerLines.getVisibleEdges();
+
+        batch.setColor(POWER_LINE_COLOR);
+        for (int i = 0; i < lineCount; i++) {
+            int o = i * PowerLineCache.FLOATS_PER_EDGE;
+            drawLine(lines[o] * TILE_SIZE, lines[o + 1] * TILE_SIZE, lines[o + 4] * TILE_SIZE, lines[o + 5], 2f);
         }
+        profiler.end(TickProfiler.Section.DRAW_POWER_LINES);
 
         batch.end();
     }
 
-    private void drawLine(float x1, float y1, float x2, float y2, float thickness, Color color) {
-        float dx = x2 - x1;
-        float dy = y2 - y1;
-        float dist = (float)Math.sqrt(dx*dx + dy*dy);
-        float angle = MathUtils.atan2(dy, dx) * MathUtils.radDeg;
-
-        batch.setColor(color);
+    // Length and angle come precomputed from the PowerLineCache. The batch color must already be set
+    private void drawLine(float x1, float y1, float dist, float angle, float thickness) {
         // We draw the whitePixel:
         // - At x1, y1
         // - With Origin at 0, thickness/2 (so the line is centered on the start point)
         // - Width = dist (length of line)
         // - Height = thickness
         // - Rotated by 'angle'
-        batch.draw(whitePixel, x1, y1, 0, thickness/2, dist, thickness, 1, 1, angle, 0, 0, 1, 1, false, false);
+        batch.draw(whitePixel, x1, y1, 0, thickness/2, dist, thickness, 1, 1, angle);
     }
 
-    private void drawGround(int x, int y) {
-        Tile tile = map[x][y];
-
-        // Base Terrain layer
-        if ((x + y) % 2 == 0) { // Checkerboard
-            batch.setColor(tile.terrain.color1);
-        } else {
-            batch.setColor(tile.terrain.color2);
+    // Buckets the visible buildings by type, keeping their tile order within each type
+    private void bucketByType() {
+        int untyped = buildingsByType.size() - 1;
+        for (int t = 0; t < buildingsByType.size(); t++) {
+            buildingsByType.get(t).clear();
         }
-
-        batch.draw(whitePixel, x * TILE_SIZE, y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
-
-        // Resource Layer
-        if (tile.resource != null) {
-            batch.setColor(tile.resource.color);
-            float margin = 4;
-            batch.draw(whitePixel, (x * TILE_SIZE) + margin, (y * TILE_SIZE) + margin, TILE_SIZE - (margin * 2), TILE_SIZE - (margin * 2));
+        for (int i = 0; i < visibleBuildings.size(); i++) {
+            Building b = visibleBuildings.get(i);
+            BuildingType type = b.getDefinition().type;
+            buildingsByType.get(type != null ? type.ordinal() : untyped).add(b);
         }
     }
 
-    private void drawBuilding(Building b) {
-        // --- DRAW BUILDING ---
-        if (b instanceof Drill) {
-            batch.setColor(DRILL_COLOR);
-        } else if (b instanceof Conveyor) {
-            batch.setColor(Color.DARK_GRAY);
-        } else if (b instanceof Factory) {
-            batch.setColor(FACTORY_COLOR);
-        } else if (b instanceof Core) {
-            batch.setColor(CORE_COLOR);
-        } else if (b instanceof PowerPole) {
-            batch.setColor(POWER_POLE_COLOR);
-        } else if (b instanceof  Battery) {
-            batch.setColor(Color.LIME);
-        }
-        else {
-            batch.setColor(Color.WHITE);
+    // Expects the batch color to be white. Sprites already carry the building color
+    private void drawBody(Building b) {
+        BuildingDef def = b.getDefinition();
+        if (def.region != null) {
+            batch.draw(def.region, b.x * TILE_SIZE, b.y * TILE_SIZE, b.width * TILE_SIZE, b.height * TILE_SIZE);
+            return;
         }
 
-        // Draw the main box using width/height
+        // No sprite (ad-hoc definition): tinted box with the same border
+        batch.setColor(def.color);
         batch.draw(whitePixel,
             (b.x * TILE_SIZE) + 2,
             (b.y * TILE_SIZE) + 2,
             (b.width * TILE_SIZE) - 4,
             (b.height * TILE_SIZE) - 4);
+        batch.setColor(Color.WHITE);
+    }
 
+    // Energy bar, direction dot and item, drawn after all bodies
+    private void drawDecorations(Building b) {
         if (b.getDefinition().energyCapacity > 0) {
             // Check if the Building stores energy
-            float percent = b.currentEnergy / b.getDefinition().energyCapacity;
+            float percent = b.getStoredEnergy() / b.getDefinition().energyCapacity;
 
             // Bar background
             batch.setColor(Color.BLACK);
@@ -691,11 +737,22 @@ public class Main extends ApplicationAdapter {
         batch.draw(whitePixel, dotX, dotY, 6, 6);
 
         // --- DRAW ITEMS ---
+        // Belt items are drawn separately when instancing is available
         ItemType item = b.getFirstItem();
-        if (item != null) {
+        if (item != null && (beltItems == null || !(b instanceof Conveyor))) {
             batch.setColor(item.color);
-            // Draw item slightly smaller in center
-            batch.draw(whitePixel, centerX - 4, centerY - 4, 8, 8);
+
+            // Belts slide their item from the entry edge to the exit edge, everything else shows it in the center
+            float itemX = centerX;
+            float itemY = centerY;
+            if (b instanceof Conveyor) {
+                float offset = (((Conveyor) b).getItemProgress(renderAlpha) - 0.5f) * TILE_SIZE;
+                itemX += b.facing.dx * offset;
+                itemY += b.facing.dy * offset;
+            }
+
+            // Draw item slightly smaller
+            batch.draw(whitePixel, itemX - 4, itemY - 4, 8, 8);
         }
     }
 
@@ -728,6 +785,11 @@ public class Main extends ApplicationAdapter {
     @Override
     public void dispose() {
         batch.dispose();
-        whitePixel.dispose();
-        if(uiStage != null) uiStage.dispose();    }
+        atlas.dispose();
+        if (terrainRenderer != null) terrainRenderer.dispose();
+        if (minimap != null) minimap.dispose();
+        if (beltItems != null) beltItems.dispose();
+        if(uiStage != null) uiStage.dispose();
+        if (simulation != null) simulation.dispose();
+    }
 }
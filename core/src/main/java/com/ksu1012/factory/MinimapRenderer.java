@@ -0,0 +1,123 @@
+package com.ksu1012.factory;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Low level-of-detail view of the whole map: one texel per tile, colored by the building on it,
+ * or by its resource or terrain if it is empty.
+ * <p>
+ * The map is painted once. After that, placements and removals (received as a {@link BuildingListener}) only
+ * queue their footprint tiles, and {@link #draw(Batch, int)} repaints just those texels before uploading.
+ * Drawing the whole factory then costs a single sprite, regardless of how many buildings it has.
+ */
+
+public class MinimapRenderer implements BuildingListener, Disposable {
+    private final Tile[][] map;
+    private final int width;
+    private final int height;
+
+    private final Pixmap pixmap;
+    private final Texture texture;
+
+    // Tiles waiting to be repainted (x + y * width), without duplicates
+    private int[] dirtyTiles = new int[256];
+    private int dirtyCount = 0;
+    private final boolean[] isDirty;
+
+    public MinimapRenderer(Tile[][] map) {
+        this.map = map;
+        this.width = map.length;
+        this.height = map[0].length;
+        this.isDirty = new boolean[width * height];
+
+        pixmap = new Pixmap(width, height, Pixmap.Format.RGBA8888);
+        pixmap.setBlending(Pixmap.Blending.None);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                paint(x, y);
+            }
+        }
+
+        texture = new Texture(pixmap);
+        texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+    }
+
+    // --- CHANGE TRACKING ---
+
+    @Override
+    public void onBuildingAdded(Building building) {
+        markDirty(building);
+    }
+
+    @Override
+    public void onBuildingRemoved(Building building) {
+        markDirty(building);
+    }
+
+    private void markDirty(Building b) {
+        for (int i = 0; i < b.width; i++) {
+            for (int j = 0; j < b.height; j++) {
+                markDirty(b.x + i, b.y + j);
+            }
+        }
+    }
+
+    // Queues a single tile, e.g. after its terrain or resource changed
+    public void markDirty(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return;
+
+        int index = x + y * width;
+        if (isDirty[index]) return;
+        isDirty[index] = true;
+
+        if (dirtyCount == dirtyTiles.length) {
+            int[] grown = new int[dirtyTiles.length * 2];
+            System.arraycopy(dirtyTiles, 0, grown, 0, dirtyCount);
+            dirtyTiles = grown;
+        }
+        dirtyTiles[dirtyCount++] = index;
+    }
+
+    // --- DRAWING ---
+
+    // Draws the whole map as one sprite, scaled to tileSize per texel. The batch must already be started
+    public void draw(Batch batch, int tileSize) {
+        if (dirtyCount > 0) {
+            for (int i = 0; i < dirtyCount; i++) {
+                int index = dirtyTiles[i];
+                isDirty[index] = false;
+                paint(index % width, index / width);
+            }
+            dirtyCount = 0;
+            texture.draw(pixmap, 0, 0);
+        }
+
+        batch.setColor(Color.WHITE);
+        batch.draw(texture, 0, 0, width * tileSize, height * tileSize);
+    }
+
+    private void paint(int x, int y) {
+        Tile tile = map[x][y];
+
+        if (tile.building != null) {
+            pixmap.setColor(tile.building.getDefinition().color);
+        } else if (tile.resource != null) {
+            pixmap.setColor(tile.resource.color);
+        } else {
+            pixmap.setColor((x + y) % 2 == 0 ? tile.terrain.color1 : tile.terrain.color2);
+        }
+
+        // Pixmap rows run top to bottom, world rows bottom to top
+        pixmap.drawPixel(x, height - 1 - y);
+    }
+
+    @Override
+    public void dispose() {
+        pixmap.dispose();
+        texture.dispose();
+    }
+}
@@ -0,0 +1,148 @@
+package com.ksu1012.factory;
+
+import java.util.ArrayList;
+
+/**
+ * Render-side cache of the power lines between connected buildings.
+ * <p>
+ * The edge list is only rebuilt when the {@link PowerSystem} reports a new version, using the connectivity the
+ * power system already tracks. Edges are stored as packed floats and bucketed by the chunk of their lower-left
+ * corner, so each frame only the chunks near the view are scanned. Length and angle are precomputed for drawing.
+ */
+
+public class PowerLineCache {
+    // Per edge: x1, y1, x2, y2 (tile units, building centers), length (tiles), angle (degrees)
+    public static final int FLOATS_PER_EDGE = 6;
+
+    private static final int CHUNK_SIZE = BuildingChunks.CHUNK_SIZE;
+
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int chunksX;
+    private final float[][] chunkEdges;
+    private final int[] chunkEdgeCounts;
+
+    private int cachedVersion = -1;
+    private int edgeCount = 0;
+    private int maxReach = 0; // Longest edge extent along an axis, in whole tiles
+
+    private float[] visible = new float[FLOATS_PER_EDGE * 64];
+    private int visibleCount = 0;
+
+    private final ArrayList<Building> pairs = new ArrayList<>();
+
+    public PowerLineCache(int mapWidth, int mapHeight) {
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.chunksX = (mapWidth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int chunksY = (mapHeight + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        this.chunkEdges = new float[chunksX * chunksY][];
+        this.chunkEdgeCounts = new int[chunksX * chunksY];
+    }
+
+    // Rebuilds the edge list if the power grid changed since the last call
+    public void update(PowerSystem powerSystem) {
+        if (powerSystem.getVersion() == cachedVersion) return;
+        cachedVersion = powerSystem.getVersion();
+
+        for (int i = 0; i < chunkEdgeCounts.length; i++) {
+            chunkEdgeCounts[i] = 0;
+        }
+        edgeCount = 0;
+        maxReach = 0;
+
+        pairs.clear();
+        powerSystem.collectEdges(pairs);
+
+        for (int i = 0; i < pairs.size(); i += 2) {
+            Building a = pairs.get(i);
+            Building b = pairs.get(i + 1);
+            addEdge(SpatialHash.centerX(a), SpatialHash.centerY(a), SpatialHash.centerX(b), SpatialHash.centerY(b));
+        }
+        pairs.clear();
+    }
+
+    private void addEdge(float x1, float y1, float x2, float y2) {
+        int minX = (int) Math.min(x1, x2);
+        int minY = (int) Math.min(y1, y2);
+        int chunk = (Math.min(minY, mapHeight - 1) / CHUNK_SIZE) * chunksX + (Math.min(minX, mapWidth - 1) / CHUNK_SIZE);
+
+        float[] edges = chunkEdges[chunk];
+        int offset = chunkEdgeCounts[chunk] * FLOATS_PER_EDGE;
+        if (edges == null || offset + FLOATS_PER_EDGE > edges.length) {
+            float[] grown = new float[Math.max(FLOATS_PER_EDGE * 16, offset * 2)];
+            if (edges != null) System.arraycopy(edges, 0, grown, 0, offset);
+            edges = grown;
+            chunkEdges[chunk] = edges;
+        }
+
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        edges[offset] = x1;
+        edges[offset + 1] = y1;
+        edges[offset + 2] = x2;
+        edges[offset + 3] = y2;
+        edges[offset + 4] = (float) Math.sqrt(dx * dx + dy * dy);
+        edges[offset + 5] = (float) Math.toDegrees(Math.atan2(dy, dx));
+
+        chunkEdgeCounts[chunk]++;
+        edgeCount++;
+        maxReach = Math.max(maxReach, (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy))));
+    }
+
+    /**
+     * Collects the edges overlapping the tile rectangle (end exclusive) into {@link #getVisibleEdges()}.
+     *
+     * @return the number of visible edges.
+     */
+    public int cull(int startX, int startY, int endX, int endY) {
+        visibleCount = 0;
+        if (edgeCount == 0 || endX <= startX || endY <= startY) return 0;
+
+        // Edges are bucketed by their lower-left corner, so look back by the longest edge
+        int firstChunkX = Math.max(0, startX - maxReach - 1) / CHUNK_SIZE;
+        int firstChunkY = Math.max(0, startY - maxReach - 1) / CHUNK_SIZE;
+        int lastChunkX = Math.min(mapWidth - 1, endX - 1) / CHUNK_SIZE;
+        int lastChunkY = Math.min(mapHeight - 1, endY - 1) / CHUNK_SIZE;
+
+        for (int cy = firstChunkY; cy <= lastChunkY; cy++) {
+            for (int cx = firstChunkX; cx <= lastChunkX; cx++) {
+                int chunk = cy * chunksX + cx;
+                float[] edges = chunkEdges[chunk];
+                int count = chunkEdgeCounts[chunk];
+
+                for (int e = 0; e < count; e++) {
+                    int o = e * FLOATS_PER_EDGE;
+                    float x1 = edges[o], y1 = edges[o + 1], x2 = edges[o + 2], y2 = edges[o + 3];
+
+                    if (Math.max(x1, x2) >= startX && Math.min(x1, x2) < endX
+                        && Math.max(y1, y2) >= startY && Math.min(y1, y2) < endY) {
+                        addVisible(edges, o);
+                    }
+                }
+            }
+        }
+        return visibleCount;
+    }
+
+    private void addVisible(float[] edges, int offset) {
+        int target = visibleCount * FLOATS_PER_EDGE;
+        if (target + FLOATS_PER_EDGE > visible.length) {
+            float[] grown = new float[visible.length * 2];
+            System.arraycopy(visible, 0, grown, 0, target);
+            visible = grown;
+        }
+        System.arraycopy(edges, offset, visible, target, FLOATS_PER_EDGE);
+        visibleCount++;
+    }
+
+    // Packed edges from the last cull(), FLOATS_PER_EDGE floats each
+    public float[] getVisibleEdges() {
+        return visible;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+}
@@ -1,38 +1,206 @@
 package com.ksu1012.factory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * A group of power-connected buildings that share production, demand and stored energy.
+ * <p>
+ * Besides the member list, the network keeps its producers, consumers and batteries in packed float arrays
+ * (structure of arrays). Each Building remembers its slot in those arrays, so members are added and removed
+ * in O(1) by swapping with the last slot, and the per-tick solve only runs over contiguous floats:
+ * <ul>
+ *   <li><b>Producers:</b> Current output, written by {@link Building#setPowerProduction(float)}.</li>
+ *   <li><b>Consumers:</b> Demand per second.</li>
+ *   <li><b>Batteries:</b> Capacity and stored charge. The charge lives here while the battery is a member
+ *   and is handed back to the Building when it leaves.</li>
+ * </ul>
+ * {@link #production} and {@link #consumption} are running totals: members adjust them as they join and leave, and
+ * every {@link #update(float)} sums them again from the slots. So a placement never has to walk the whole network.
+ */
+
 public class PowerNetwork {
     public List<Building> members = new ArrayList<>();
     public float production = 0f;
     public float consumption = 0f;
     public float satisfaction = 0f; // 0.0 to 1.0
+    public boolean powered = false; // Buildings require at least 10% power to function
+
+    int index = -1; // Position in the PowerSystem's network list
+
+    // --- PACKED STATE ---
+    private Building[] producers = new Building[4];
+    private float[] producerOutput = new float[4];
+    private int producerCount = 0;
+
+    private Building[] consumers = new Building[4];
+    private float[] consumerDemand = new float[4];
+    private int consumerCount = 0;
+
+    private Building[] batteries = new Building[4];
+    private float[] batteryCapacity = new float[4];
+    private float[] batteryStored = new float[4];
+    private int batteryCount = 0;
 
     public void addMember(Building b) {
+        b.memberSlot = members.size();
         members.add(b);
-        production += b.getDefinition().powerGeneration;
-        consumption += b.getDefinition().powerConsumption;
         b.network = this;
+
+        if (b.generatesPower()) {
+            if (producerCount == producers.length) {
+                producers = Arrays.copyOf(producers, producerCount * 2);
+                producerOutput = Arrays.copyOf(producerOutput, producerCount * 2);
+            }
+            producers[producerCount] = b;
+            producerOutput[producerCount] = b.powerProduction;
+            b.producerSlot = producerCount++;
+            production += b.powerProduction;
+        }
+
+        if (b.powerConsumption > 0) {
+            if (consumerCount == consumers.length) {
+                consumers = Arrays.copyOf(consumers, consumerCount * 2);
+                consumerDemand = Arrays.copyOf(consumerDemand, consumerCount * 2);
+            }
+            consumers[consumerCount] = b;
+            consumerDemand[consumerCount] = b.powerConsumption;
+            b.consumerSlot = consumerCount++;
+            consumption += b.powerConsumption;
+            b.wake(); // May have slept without power
+        }
+
+        if (b.isBattery()) {
+            if (batteryCount == batteries.length) {
+                batteries = Arrays.copyOf(batteries, batteryCount * 2);
+                batteryCapacity = Arrays.copyOf(batteryCapacity, batteryCount * 2);
+                batteryStored = Arrays.copyOf(batteryStored, batteryCount * 2);
+            }
+            batteries[batteryCount] = b;
+            batteryCapacity[batteryCount] = b.getDefinition().energyCapacity;
+            batteryStored[batteryCount] = b.currentEnergy;
+            b.batterySlot = batteryCount++;
+        }
+    }
+
+    // Swap-removes b from the member list and every packed array. Leaves b.network to the caller
+    public void removeMember(Building b) {
+        int last = members.size() - 1;
+        Building movedMember = members.get(last);
+        members.set(b.memberSlot, movedMember);
+        movedMember.memberSlot = b.memberSlot;
+        members.remove(last);
+        b.memberSlot = -1;
+
+        if (b.producerSlot >= 0) {
+            int slot = b.producerSlot;
+            production -= producerOutput[slot];
+            last = --producerCount;
+            producers[slot] = producers[last];
+            producerOutput[slot] = producerOutput[last];
+            producers[slot].producerSlot = slot;
+            producers[last] = null;
+            b.producerSlot = -1;
+        }
+
+        if (b.consumerSlot >= 0) {
+            int slot = b.consumerSlot;
+            consumption -= consumerDemand[slot];
+            last = --consumerCount;
+            consumers[slot] = consumers[last];
+            consumerDemand[slot] = consumerDemand[last];
+            consumers[slot].consumerSlot = slot;
+            consumers[last] = null;
+            b.consumerSlot = -1;
+        }
+
+        if (b.batterySlot >= 0) {
+            int slot = b.batterySlot;
+            b.currentEnergy = batteryStored[slot]; // Hand the charge back
+            last = --batteryCount;
+            batteries[slot] = batteries[last];
+            batteryCapacity[slot] = batteryCapacity[last];
+            batteryStored[slot] = batteryStored[last];
+            batteries[slot].batterySlot = slot;
+            batteries[last] = null;
+            b.batterySlot = -1;
+        }
+    }
+
+    // Moves every member of other into this network
+    public void absorb(PowerNetwork other) {
+        List<Building> moved = other.members;
+        other.clearMembers(); // Hands the battery charge back first, so it carries over
+        for (int i = 0; i < moved.size(); i++) {
+            addMember(moved.get(i));
+        }
+    }
+
+    // Detaches every member (callers still holding the old member list can keep reading it)
+    public void clearMembers() {
+        for (int i = 0; i < members.size(); i++) {
+            Building b = members.get(i);
+            if (b.batterySlot >= 0) b.currentEnergy = batteryStored[b.batterySlot];
+            b.memberSlot = -1;
+            b.producerSlot = -1;
+            b.consumerSlot = -1;
+            b.batterySlot = -1;
+        }
+
+        members = new ArrayList<>();
+        Arrays.fill(producers, 0, producerCount, null);
+        Arrays.fill(consumers, 0, consumerCount, null);
+        Arrays.fill(batteries, 0, batteryCount, null);
+        producerCount = 0;
+        consumerCount = 0;
+        batteryCount = 0;
+        production = 0f;
+        consumption = 0f;
+    }
+
+    void setProducerOutput(int slot, float output) {
+        producerOutput[slot] = output;
+    }
+
+    float getStoredEnergy(int slot) {
+        return batteryStored[slot];
+    }
+
+    /**
+     * Re-solves the network after members joined or left, in O(1). Decides what {@link #update(float)} with a delta
+     * of 0 would: a zero-length step moves no energy, so demand counts as met until the next tick solves the network
+     * with real time. Only if that switches the network on are its consumers woken, as in {@link #update(float)}.
+     */
+    public void refresh() {
+        satisfaction = 1.0f;
+        if (powered) return;
+
+        powered = true;
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i].wake();
+        }
     }
 
     public void update(float delta) {
-        // Reset Totals
+        boolean wasPowered = powered;
+
+        // Calculate Potentials. Summed again from the slots, since producers change their output during the tick
         production = 0f;
+        for (int i = 0; i < producerCount; i++) {
+            production += producerOutput[i];
+        }
+
         consumption = 0f;
+        for (int i = 0; i < consumerCount; i++) {
+            consumption += consumerDemand[i];
+        }
+
         float totalCapacity = 0f;
         float totalStored = 0f;
-
-        // Calculate Potentials
-        for (Building b : members) {
-            production += b.powerProduction;
-            consumption += b.powerConsumption;
-
-            // Battery Logic uses b.maxEnergy now
-            if (b.energyCapacity > 0) {
-                totalCapacity += b.energyCapacity;
-                totalStored += b.currentEnergy;
-            }
+        for (int i = 0; i < batteryCount; i++) {
+            totalCapacity += batteryCapacity[i];
+            totalStored += batteryStored[i];
         }
 
         // Calculate Net Power for this frame
@@ -44,19 +212,15 @@ public class PowerNetwork {
             // Power surplus
             satisfaction = 1.0f; // Factories run at 100%
 
-            // Distribute netEnergy into batteries
+            // Distribute netEnergy into batteries, filling them in order
             if (totalCapacity > 0) {
                 float energyToAdd = netEnergy;
+                for (int i = 0; i < batteryCount && energyToAdd > 0; i++) {
+                    float space = batteryCapacity[i] - batteryStored[i];
+                    float taking = Math.min(space, energyToAdd); // Accept only up to the cap
 
-                // Add to individual buildings
-                for (Building b : members) {
-                    if (b.isBattery() && energyToAdd > 0) {
-                        float space = b.getDefinition().energyCapacity - b.currentEnergy;
-                        float taking = Math.min(space, energyToAdd); // Accept only up to the cap
-
-                        b.currentEnergy += taking;
-                        energyToAdd -= taking;
-                    }
+                    batteryStored[i] += taking;
+                    energyToAdd -= taking;
                 }
             }
         } else {
@@ -68,14 +232,11 @@ public class PowerNetwork {
                 satisfaction = 1.0f;
 
                 // Drain the batteries
-                for (Building b : members) {
-                    if (b.isBattery() && energyNeeded > 0) {
-                        float available = b.currentEnergy;
-                        float taking = Math.min(available, energyNeeded);
-
-                        b.currentEnergy -= taking;
-                        energyNeeded -= taking;
-                    }
+                for (int i = 0; i < batteryCount && energyNeeded > 0; i++) {
+                    float taking = Math.min(batteryStored[i], energyNeeded);
+
+                    batteryStored[i] -= taking;
+                    energyNeeded -= taking;
                 }
             } else {
                 // Insufficient power from both generation and batteries
@@ -90,16 +251,18 @@ public class PowerNetwork {
                 }
 
                 // Empty batteries because there is no power
-                for (Building b : members) {
-                    if (b.isBattery()) b.currentEnergy = 0f;
-                }
+                Arrays.fill(batteryStored, 0, batteryCount, 0f);
             }
         }
 
-        // Update Buildings status
-        for (Building b : members) {
-            // Buildings require at least 10% power to function
-            b.hasPower = (satisfaction > 0.1f);
+        // Members read this through Building.hasPower()
+        powered = (satisfaction > 0.1f);
+
+        // Consumers sleep while unpowered, and crafting ones sleep on a timer that assumes the power stays on
+        if (powered != wasPowered) {
+            for (int i = 0; i < consumerCount; i++) {
+                consumers[i].wake();
+            }
         }
     }
 }
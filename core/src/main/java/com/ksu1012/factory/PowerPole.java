@@ -10,6 +10,11 @@ public class PowerPole extends Building {
         // Do nothing
     }
 
+    @Override
+    public boolean needsUpdate() {
+        return false;
+    }
+
     @Override
     public float getConnectionRadius() {
         return 5.5f;
@@ -3,71 +3,264 @@ package com.ksu1012.factory;
 import com.badlogic.gdx.math.Vector2;
 import java.util.*;
 
+/**
+ * Groups power-connected buildings into {@link PowerNetwork}s and ticks them.
+ * <p>
+ * Two buildings are connected when the distance between their centers is within the larger of their
+ * connection radii. Neighbors are found through a {@link SpatialHash} with the largest radius as cell size.
+ * <p>
+ * Networks are maintained incrementally as buildings come and go:
+ * <ul>
+ *   <li><b>Placement:</b> The new building joins the network it touches, which adjusts its running totals and
+ *   {@link PowerNetwork#refresh() refreshes} in O(1). If it touches several, the smaller ones are merged into the largest
+ *   (union by size) by moving their members over: a merge costs O(smaller side), so a building moves at most
+ *   log n times. Members point at their network directly rather than through a union-find, because
+ *   {@link Building#hasPower()} reads that pointer every tick.</li>
+ *   <li><b>Removal:</b> O(1) if the building had at most one neighbor. Otherwise the network it belonged to is
+ *   flooded again, since the building could have been holding it together, and each split-off part becomes its own network.</li>
+ * </ul>
+ * Battery charge is held by the {@link PowerNetwork} a battery belongs to. The network hands it back to the building
+ * when the building is removed, merged away or split off ({@link PowerNetwork#removeMember},
+ * {@link PowerNetwork#clearMembers}), and the next network takes it over, so the charge survives merges and splits.
+ */
+
 public class PowerSystem {
     private List<PowerNetwork> networks = new ArrayList<>();
 
-    // O(N^2), but should be fine (only runs when placing or deleting)
+    // Every powered building, bucketed by position. Created with the first powered building
+    private SpatialHash grid = null;
+
+    // Incremented whenever the connection graph changes, so caches of it (e.g. power lines) know to refresh
+    private int version = 0;
+
+    // Reused between searches
+    private final ArrayDeque<Building> queue = new ArrayDeque<>();
+    private final ArrayList<Building> candidates = new ArrayList<>();
+    private final ArrayList<Building> neighbors = new ArrayList<>();
+    private final ArrayList<PowerNetwork> touched = new ArrayList<>();
+
+    // Rebuilds every network from scratch (e.g. after loading a world)
     public void rebuildNetworks(List<Building> allBuildings) {
+        // Detach the old networks first, which hands battery charge back to the buildings
+        for (int i = 0; i < networks.size(); i++) {
+            networks.get(i).clearMembers();
+            networks.get(i).index = -1;
+        }
         networks.clear();
-        Set<Building> visited = new HashSet<>();
+        version++;
 
-        // Reset every Building
+        // Reset every Building, collect the powered ones and the largest connection radius
+        List<Building> powered = new ArrayList<>();
+        float maxRadius = 0f;
         for (Building b : allBuildings) {
             b.network = null;
-            b.hasPower = false;
+
+            if (usesPower(b)) {
+                powered.add(b);
+                maxRadius = Math.max(maxRadius, b.getConnectionRadius());
+            }
+        }
+
+        if (powered.isEmpty()) {
+            grid = null;
+            return;
         }
 
-        // BFS Loop
-        for (Building startNode : allBuildings) {
-            // Skip if visited or if it doesn't interact with power at all
-            if (visited.contains(startNode)) continue;
-            if (!usesPower(startNode)) continue;
+        grid = new SpatialHash(maxRadius);
+        for (Building b : powered) {
+            grid.insert(b);
+        }
+
+        // BFS Loop (a Building with a network has been visited)
+        for (Building startNode : powered) {
+            if (startNode.network != null) continue;
 
-            // Start a new Network
             PowerNetwork net = new PowerNetwork();
-            networks.add(net);
+            addNetwork(net);
+            flood(startNode, net);
+        }
 
-            Queue<Building> queue = new LinkedList<>();
-            queue.add(startNode);
-            visited.add(startNode);
-            net.addMember(startNode);
+        update(0);
+    }
 
-            while (!queue.isEmpty()) {
-                Building current = queue.poll();
+    /**
+     * Connects a newly placed building to the networks in its range, merging them if it bridges several.
+     */
+    public void onBuildingAdded(Building b) {
+        if (!usesPower(b)) return;
+        version++;
 
-                // Find neighbors
-                for (Building other : allBuildings) {
-                    if (visited.contains(other)) continue;
-                    if (!usesPower(other)) continue;
+        // The cell size must cover the largest radius, so a longer reach means re-bucketing
+        if (grid == null || b.getConnectionRadius() > grid.getCellSize()) {
+            regrid(b.getConnectionRadius());
+        }
 
-                    // Calculate center point
-                    float currentCenterX = current.x + (current.width / 2f);
-                    float currentCenterY = current.y + (current.height / 2f);
+        // Collect the distinct networks in range
+        findNeighbors(b);
+        touched.clear();
+        for (int i = 0; i < neighbors.size(); i++) {
+            PowerNetwork net = neighbors.get(i).network;
+            if (!touched.contains(net)) touched.add(net);
+        }
+        neighbors.clear();
 
-                    float otherCenterX = other.x + (other.width / 2f);
-                    float otherCenterY = other.y + (other.height / 2f);
+        grid.insert(b);
 
-                    // Calculate distance between centers
-                    float dist = Vector2.dst(currentCenterX, currentCenterY, otherCenterX, otherCenterY);
+        if (touched.isEmpty()) {
+            PowerNetwork net = new PowerNetwork();
+            addNetwork(net);
+            net.addMember(b);
+            net.refresh();
+            return;
+        }
 
-                    // Use the greater connection radius of the two Buildings (e.g. a PowerPole can connect to a Factory without contact)
-                    float range = Math.max(current.getConnectionRadius(), other.getConnectionRadius());
+        // Union by size: the largest network absorbs the others
+        PowerNetwork largest = touched.get(0);
+        for (int i = 1; i < touched.size(); i++) {
+            if (touched.get(i).members.size() > largest.members.size()) largest = touched.get(i);
+        }
+        for (int i = 0; i < touched.size(); i++) {
+            PowerNetwork net = touched.get(i);
+            if (net == largest) continue;
 
-                    if (dist <= range) {
-                        visited.add(other);
-                        queue.add(other);
-                        net.addMember(other);
-                    }
+            largest.absorb(net);
+            removeNetwork(net);
+        }
+        touched.clear();
+
+        largest.addMember(b);
+        largest.refresh();
+    }
+
+    /**
+     * Disconnects a removed building and splits its network if the building was the only link between parts of it.
+     */
+    public void onBuildingRemoved(Building b) {
+        PowerNetwork net = b.network;
+        if (net == null) return;
+        version++;
+
+        grid.remove(b);
+        net.removeMember(b);
+        b.network = null;
+
+        if (net.members.isEmpty()) {
+            removeNetwork(net);
+            return;
+        }
+
+        // Former neighbors are the only places the network can have come apart.
+        // With a single neighbor, removing the building cannot disconnect anything.
+        findNeighbors(b);
+        if (neighbors.size() <= 1) {
+            neighbors.clear();
+            net.refresh();
+            return;
+        }
+
+        // Detach all members, then flood from each former neighbor that is not reached yet.
+        // The first part keeps the existing network, every further part gets a new one.
+        List<Building> oldMembers = net.members;
+        net.clearMembers();
+        for (int i = 0; i < oldMembers.size(); i++) {
+            oldMembers.get(i).network = null;
+        }
+
+        PowerNetwork part = net;
+        for (int i = 0; i < neighbors.size(); i++) {
+            Building start = neighbors.get(i);
+            if (start.network != null) continue;
+
+            if (part == null) {
+                part = new PowerNetwork();
+                addNetwork(part);
+            }
+            flood(start, part);
+            part.refresh();
+            part = null;
+        }
+        neighbors.clear();
+    }
+
+    // BFS from start over unassigned buildings, adding everything reached to target
+    private void flood(Building start, PowerNetwork target) {
+        queue.add(start);
+        target.addMember(start);
+
+        while (!queue.isEmpty()) {
+            Building current = queue.poll();
+
+            // Find neighbors in the surrounding cells only
+            candidates.clear();
+            grid.queryNeighbors(SpatialHash.centerX(current), SpatialHash.centerY(current), candidates);
+
+            for (int i = 0; i < candidates.size(); i++) {
+                Building other = candidates.get(i);
+                if (other.network != null || other == current) continue;
+
+                if (isConnected(current, other)) {
+                    queue.add(other);
+                    target.addMember(other);
                 }
             }
         }
+        candidates.clear();
+    }
 
-        update(0);
+    // Collects the powered buildings in range of b (excluding b itself) into neighbors
+    private void findNeighbors(Building b) {
+        neighbors.clear();
+        candidates.clear();
+        grid.queryNeighbors(SpatialHash.centerX(b), SpatialHash.centerY(b), candidates);
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Building other = candidates.get(i);
+            if (other != b && isConnected(b, other)) {
+                neighbors.add(other);
+            }
+        }
+        candidates.clear();
+    }
+
+    // Re-buckets all powered buildings with a larger cell size
+    private void regrid(float cellSize) {
+        grid = new SpatialHash(cellSize);
+        for (int n = 0; n < networks.size(); n++) {
+            List<Building> members = networks.get(n).members;
+            for (int i = 0; i < members.size(); i++) {
+                grid.insert(members.get(i));
+            }
+        }
+    }
+
+    // --- NETWORK LIST ---
+
+    private void addNetwork(PowerNetwork net) {
+        net.index = networks.size();
+        networks.add(net);
+    }
+
+    // Swap-remove, so dropping a network does not shift the whole list
+    private void removeNetwork(PowerNetwork net) {
+        int last = networks.size() - 1;
+        PowerNetwork moved = networks.get(last);
+        networks.set(net.index, moved);
+        moved.index = net.index;
+        networks.remove(last);
+        net.index = -1;
+    }
+
+    // Distance between centers is within the greater connection radius of the two Buildings
+    // (e.g. a PowerPole can connect to a Factory without contact)
+    public static boolean isConnected(Building a, Building b) {
+        float dist = Vector2.dst(SpatialHash.centerX(a), SpatialHash.centerY(a), SpatialHash.centerX(b), SpatialHash.centerY(b));
+        float range = Math.max(a.getConnectionRadius(), b.getConnectionRadius());
+        return dist <= range;
     }
 
     public void update(float delta) {
-        for (PowerNetwork net : networks) {
-            net.update(delta);
+        for (int i = 0; i < networks.size(); i++) {
+            networks.get(i).update(delta);
         }
     }
 
@@ -75,5 +268,38 @@ public class PowerSystem {
         return b.connectsToPower();
     }
 
+    /**
+     * Collects every connected pair of buildings once, as consecutive entries (a, b) in out.
+     * Uses the spatial hash, so the cost is linear in the number of powered buildings.
+     */
+    public void collectEdges(List<Building> out) {
+        if (grid == null) return;
+
+        for (int n = 0; n < networks.size(); n++) {
+            List<Building> members = networks.get(n).members;
+            for (int m = 0; m < members.size(); m++) {
+                Building current = members.get(m);
+
+                candidates.clear();
+                grid.queryNeighbors(SpatialHash.centerX(current), SpatialHash.centerY(current), candidates);
+
+                for (int i = 0; i < candidates.size(); i++) {
+                    Building other = candidates.get(i);
+
+                    // Member slots are unique within a network, so each pair is emitted from its lower slot only
+                    if (other.network != current.network || other.memberSlot <= current.memberSlot) continue;
+
+                    if (isConnected(current, other)) {
+                        out.add(current);
+                        out.add(other);
+                    }
+                }
+            }
+        }
+        candidates.clear();
+    }
+
+    public int getVersion() { return version; }
+
     public List<PowerNetwork> getNetworks() { return networks; }
 }
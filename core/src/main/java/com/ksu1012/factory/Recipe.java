@@ -9,6 +9,12 @@ public class Recipe {
     // ItemType, Amount Produced (can be multiple)
     public HashMap<ItemType, Integer> outputs = new HashMap<>();
 
+    // Array copies of inputs/outputs for the tick loop (iterating a HashMap allocates an iterator)
+    public ItemType[] inputItems = new ItemType[0];
+    public int[] inputAmounts = new int[0];
+    public ItemType[] outputItems = new ItemType[0];
+    public int[] outputAmounts = new int[0];
+
     public float craftTime;
 
     public Recipe(float craftTime) {
@@ -18,11 +24,33 @@ public class Recipe {
     // Builder methods allow us to chain calls like: new Recipe(1f).addInput(...).addOutput(...)
     public Recipe addInput(ItemType type, int amount) {
         inputs.put(type, amount);
+        inputItems = itemsOf(inputs);
+        inputAmounts = amountsOf(inputs, inputItems);
         return this;
     }
 
     public Recipe addOutput(ItemType type, int amount) {
         outputs.put(type, amount);
+        outputItems = itemsOf(outputs);
+        outputAmounts = amountsOf(outputs, outputItems);
         return this;
     }
+
+    // Keys in ordinal order, so iteration order is the same on every run
+    private static ItemType[] itemsOf(HashMap<ItemType, Integer> map) {
+        ItemType[] items = new ItemType[map.size()];
+        int n = 0;
+        for (ItemType type : ItemType.values()) {
+            if (map.containsKey(type)) items[n++] = type;
+        }
+        return items;
+    }
+
+    private static int[] amountsOf(HashMap<ItemType, Integer> map, ItemType[] items) {
+        int[] amounts = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            amounts[i] = map.get(items[i]);
+        }
+        return amounts;
+    }
 }
@@ -0,0 +1,125 @@
+package com.ksu1012.factory;
+
+import java.util.List;
+
+/**
+ * The recipes of a {@link FactoryDef}, compiled once into flat arrays of (item ordinal, amount) pairs.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li><b>Recipes:</b> The inputs of recipe r are the pairs in {@code [inputStart[r], inputStart[r + 1])}, its
+ *   outputs those in {@code [outputStart[r], outputStart[r + 1])}, in ordinal order like {@link Recipe}'s arrays.</li>
+ *   <li><b>Uses:</b> For each item ordinal, every recipe that takes it as an input or makes it as an output, so a
+ *   {@link Factory} only re-checks those recipes when the count of that item changes.</li>
+ *   <li><b>Outputs:</b> Every item any recipe makes, once, in recipe order (the order the factory pushes them in).</li>
+ * </ul>
+ * A definition has at most 32 recipes, so a set of recipes fits into an int.
+ */
+
+public class RecipeTable {
+    public static final int MAX_RECIPES = 32;
+
+    final Recipe[] recipes;
+
+    final int[] inputStart;
+    final int[] inputSlots;
+    final int[] inputAmounts;
+    final int[] outputStart;
+    final int[] outputSlots;
+    final int[] outputAmounts;
+
+    // Uses of item ordinal i are useRecipes/useAmounts/useIsOutput[useStart[i] .. useStart[i + 1])
+    final int[] useStart = new int[ItemType.COUNT + 1];
+    final int[] useRecipes;
+    final int[] useAmounts;
+    final boolean[] useIsOutput;
+
+    final ItemType[] outputItems;
+
+    public RecipeTable(List<Recipe> list) {
+        if (list.size() > MAX_RECIPES) {
+            throw new IllegalArgumentException("At most " + MAX_RECIPES + " recipes per building, got " + list.size());
+        }
+        recipes = list.toArray(new Recipe[0]);
+
+        int inputs = 0;
+        int outputs = 0;
+        for (Recipe r : recipes) {
+            inputs += r.inputItems.length;
+            outputs += r.outputItems.length;
+        }
+
+        inputStart = new int[recipes.length + 1];
+        inputSlots = new int[inputs];
+        inputAmounts = new int[inputs];
+        outputStart = new int[recipes.length + 1];
+        outputSlots = new int[outputs];
+        outputAmounts = new int[outputs];
+
+        int in = 0;
+        int out = 0;
+        int outputMask = 0;
+        for (int r = 0; r < recipes.length; r++) {
+            Recipe recipe = recipes[r];
+            inputStart[r] = in;
+            for (int i = 0; i < recipe.inputItems.length; i++) {
+                inputSlots[in] = recipe.inputItems[i].ordinal();
+                inputAmounts[in] = recipe.inputAmounts[i];
+                useStart[inputSlots[in] + 1]++;
+                in++;
+            }
+            outputStart[r] = out;
+            for (int i = 0; i < recipe.outputItems.length; i++) {
+                outputSlots[out] = recipe.outputItems[i].ordinal();
+                outputAmounts[out] = recipe.outputAmounts[i];
+                useStart[outputSlots[out] + 1]++;
+                outputMask |= 1 << outputSlots[out];
+                out++;
+            }
+        }
+        inputStart[recipes.length] = in;
+        outputStart[recipes.length] = out;
+
+        // Uses, grouped by item (counting sort on the ordinal)
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            useStart[i + 1] += useStart[i];
+        }
+        useRecipes = new int[inputs + outputs];
+        useAmounts = new int[inputs + outputs];
+        useIsOutput = new boolean[inputs + outputs];
+        int[] fill = useStart.clone();
+        for (int r = 0; r < recipes.length; r++) {
+            for (int i = inputStart[r]; i < inputStart[r + 1]; i++) {
+                int u = fill[inputSlots[i]]++;
+                useRecipes[u] = r;
+                useAmounts[u] = inputAmounts[i];
+            }
+            for (int i = outputStart[r]; i < outputStart[r + 1]; i++) {
+                int u = fill[outputSlots[i]]++;
+                useRecipes[u] = r;
+                useAmounts[u] = outputAmounts[i];
+                useIsOutput[u] = true;
+            }
+        }
+
+        // Distinct outputs, first appearance first
+        outputItems = new ItemType[Integer.bitCount(outputMask)];
+        int n = 0;
+        for (int i = 0; i < out; i++) {
+            ItemType item = ItemType.get(outputSlots[i]);
+            boolean seen = false;
+            for (int j = 0; j < n; j++) {
+                if (outputItems[j] == item) seen = true;
+            }
+            if (!seen) outputItems[n++] = item;
+        }
+    }
+
+    public int getRecipeCount() {
+        return recipes.length;
+    }
+
+    public Recipe getRecipe(int index) {
+        return recipes[index];
+    }
+}
@@ -0,0 +1,66 @@
+package com.ksu1012.factory;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring buffer of the most recent duration samples (in nanoseconds).
+ * <p>
+ * Recording only overwrites the oldest sample, so it never allocates. Percentiles are computed on demand by
+ * sorting a copy into a reused scratch array, which is cheap enough for an overlay refreshed a few times a second.
+ */
+
+public class RollingHistogram {
+    private final long[] samples;
+    private final long[] sorted; // Scratch for percentile queries
+    private int next = 0;
+    private int count = 0;
+
+    public RollingHistogram(int capacity) {
+        this.samples = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    public void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    public void clear() {
+        next = 0;
+        count = 0;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getAverage() {
+        if (count == 0) return 0;
+
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return sum / count;
+    }
+
+    public long getMax() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    // Nearest-rank percentile over the current window (0.0 to 1.0)
+    public long getPercentile(float fraction) {
+        if (count == 0) return 0;
+
+        System.arraycopy(samples, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+
+        int rank = (int) Math.ceil(fraction * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, rank))];
+    }
+}
@@ -0,0 +1,655 @@
+package com.ksu1012.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Headless simulation engine owning the world state.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li><b>World Data:</b> Owns the tile map, the building list, the {@link PowerSystem} and the {@link TransportLines}.</li>
+ *   <li><b>Fixed Timestep:</b> Accumulates frame time and advances the world in ticks of {@link #TICK_DELTA},
+ *   so throughput and determinism do not depend on the frame rate.</li>
+ *   <li><b>Time Scale:</b> Frame time is multiplied by the {@link TimeScale}, and ticking stops once the caller's
+ *   time budget is used up, so fast-forwarding cannot freeze the frame.</li>
+ *   <li><b>Placement:</b> Validates, adds and removes buildings.</li>
+ *   <li><b>Two-Phase Ticks:</b> Buildings first update and queue push intents into their chunk's
+ *   {@link TransferBuffer}, then all intents are committed in chunk order. Item movement does not depend on
+ *   update order, so the update phase can run the {@link BuildingChunks} chunks on a ForkJoinPool with
+ *   bit-identical results to serial mode.</li>
+ *   <li><b>Belts:</b> Conveyors are not updated one by one. Each chunk updates the {@link TransportLine}s whose head it holds.</li>
+ *   <li><b>Sleeping:</b> Buildings and lines that cannot make progress (no inputs, blocked output, no power) sleep
+ *   until an event wakes them, so stalled parts of a base cost nothing per tick. Results are the same as without sleeping.</li>
+ *   <li><b>Fast-Forward:</b> {@link #fastForward(int)} skips the regions a {@link FlowSolver} finds settled and credits
+ *   their cores at the solved rates. Approximate and opt-in, ticks stay exact otherwise.</li>
+ * </ul>
+ * Contains no rendering or input code, so it can run without a window or GL context.
+ */
+
+public class Simulation {
+    // --- TIMING ---
+    // Kept low for throughput. The renderer interpolates between ticks (see getAlpha()), so motion stays smooth
+    public static final int TICKS_PER_SECOND = 20;
+    public static final float TICK_DELTA = 1f / TICKS_PER_SECOND;
+
+    // Never catch up more than 0.1s of real time in one advance() call (prevents the "spiral of death")
+    private static final int MAX_TICKS_PER_ADVANCE = 2;
+
+    // Wall time advance(delta) may spend on ticks. Only limits fast-forwarding, 1x never comes close
+    private static final long DEFAULT_BUDGET_NANOS = 100_000_000L;
+
+    // fastForward(): real ticks per check of the solver's rates, and how far a region's deliveries may be off
+    private static final int FAST_FORWARD_PROBE_TICKS = 60 * TICKS_PER_SECOND;
+    private static final double FAST_FORWARD_TOLERANCE = 0.02;
+
+    // --- DATA LAYER ---
+    private final Tile[][] map;
+    private final int width;
+    private final int height;
+    private final ArrayList<Building> buildings = new ArrayList<>();
+    private final PowerSystem powerSystem = new PowerSystem();
+    private final BuildingChunks chunks;
+    private final TransportLines transportLines;
+    private final TickProfiler profiler = new TickProfiler();
+    private final ArrayList<BuildingListener> listeners = new ArrayList<>();
+
+    // Per-chunk update time by BuildingType ordinal, only filled while the profiler is enabled.
+    // Each chunk is updated by one thread at a time, so the rows need no synchronization
+    private final long[][] typeNanos;
+    private boolean timeTypes = false;
+
+    // --- THREADING ---
+    private boolean parallel = false;
+    private ForkJoinPool pool = null; // Created on first use
+    private final ArrayList<Thread> workers = new ArrayList<>(); // Every thread the pool started. Guarded by itself
+
+    // Task tree over all chunks. Built once and submitted again every tick, so parallel ticks don't allocate
+    private int leafTaskCount = 0;
+    private final ChunkUpdateTask rootTask;
+
+    // Leaf tasks still running this tick. The last one to finish sets updatesDone and wakes the tick thread
+    private final AtomicInteger pendingLeaves = new AtomicInteger();
+    private final AtomicReference<Throwable> updateFailure = new AtomicReference<>();
+    private volatile boolean updatesDone = false;
+    private volatile Thread tickThread = null;
+
+    // --- TIMING STATE ---
+    private float accumulator = 0f;
+    private long tickCount = 0;
+    private TimeScale timeScale = TimeScale.NORMAL;
+    private boolean behind = false; // The last advance() ran out of budget before catching up
+
+    // Generates a new world with a random seed
+    public Simulation(int width, int height) {
+        this(new WorldGenerator(width, height).generate());
+    }
+
+    // Generates a reproducible world from the given seed
+    public Simulation(int width, int height, long seed) {
+        this(new WorldGenerator(width, height, seed).generate());
+    }
+
+    // Wraps an existing map (e.g. a synthetic test world)
+    public Simulation(Tile[][] map) {
+        this.map = map;
+        this.width = map.length;
+        this.height = map[0].length;
+        this.chunks = new BuildingChunks(width, height);
+        this.transportLines = new TransportLines(map, chunks);
+        this.typeNanos = new long[chunks.getChunkCount()][BuildingType.values().length];
+        this.rootTask = new ChunkUpdateTask(0, chunks.getChunkCount());
+    }
+
+    /**
+     * Clears the area in the center of the map and places the Core there.
+     *
+     * @return the placed Core.
+     */
+    public Building spawnCore() {
+        int centerX = width / 2;
+        int centerY = height / 2;
+
+        // Clear an area in the center of the map (where the core will be)
+        int clearRadius = 5;
+        for (int x = centerX - clearRadius; x <= centerX + clearRadius; x++) {
+            for (int y = centerY - clearRadius; y <= centerY + clearRadius; y++) {
+                if (x >= 0 && x < width && y >= 0 && y < height) {
+                    map[x][y].terrain = TerrainType.DIRT;
+                    map[x][y].resource = null;
+                    map[x][y].building = null;
+                }
+            }
+        }
+
+        Building core = BuildingType.CORE.create(centerX - 1, centerY - 1);
+        addBuilding(core);
+        return core;
+    }
+
+    // Same as advance(delta, budget) with a budget of 0.1s
+    public int advance(float delta) {
+        return advance(delta, DEFAULT_BUDGET_NANOS);
+    }
+
+    /**
+     * Advances the simulation by the elapsed frame time, scaled by the time scale.
+     * Runs as many fixed ticks as fit into the accumulated time and keeps the remainder for the next call.
+     * <p>
+     * If the ticks take longer than the budget, the rest of the backlog is dropped and {@link #isBehind()}
+     * returns true: the world then runs slower than requested instead of falling further behind.
+     * At {@link TimeScale#MAX} this always happens, since ticks run until the budget is used up.
+     *
+     * @param delta Elapsed real time in seconds.
+     * @param budgetNanos Wall time the ticks may take.
+     * @return the number of ticks that were run.
+     */
+    public int advance(float delta, long budgetNanos) {
+        long start = System.nanoTime();
+        int ticks = 0;
+
+        if (timeScale.isUnlimited()) {
+            do {
+                tick();
+                ticks++;
+            } while (System.nanoTime() - start < budgetNanos);
+
+            accumulator = 0f;
+            behind = true;
+            return ticks;
+        }
+
+        float maxBacklog = MAX_TICKS_PER_ADVANCE * timeScale.factor * TICK_DELTA;
+        accumulator = Math.min(accumulator + delta * timeScale.factor, maxBacklog);
+        behind = false;
+
+        while (accumulator >= TICK_DELTA) {
+            tick();
+            accumulator -= TICK_DELTA;
+            ticks++;
+
+            if (accumulator >= TICK_DELTA && System.nanoTime() - start >= budgetNanos) {
+                accumulator %= TICK_DELTA;
+                behind = true;
+                break;
+            }
+        }
+        return ticks;
+    }
+
+    // Runs the given number of ticks back to back, ignoring real time (headless runs, balance testing)
+    public void runTicks(int count) {
+        for (int i = 0; i < count; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Runs the given number of ticks, skipping the parts of the base that have settled.
+     * <p>
+     * Solves the long-run rates with a {@link FlowSolver}, then runs real ticks in windows of a minute. Every region
+     * (group of buildings connected by item flow) whose cores received what the solver predicts during a window,
+     * within 2%, is parked for the remaining ticks: its buildings sleep, and its cores are credited with the predicted
+     * rates instead. Everything else is simulated as usual. Regions with power buildings are never parked, since
+     * their power network reaches beyond them.
+     * <p>
+     * Approximate: parked buildings resume with the state they had when they were parked, and the credited items
+     * are rounded rates, not simulated deliveries. {@link #runTicks(int)} stays exact.
+     *
+     * @param ticks Number of ticks to advance.
+     * @return the number of regions that were parked.
+     */
+    public int fastForward(int ticks) {
+        FlowSolver solver = new FlowSolver(this);
+        int regionCount = solver.getRegionCount();
+
+        // Regions that could be parked: delivering to a core, and not tied to others by power
+        boolean[] candidate = new boolean[regionCount];
+        Core[] cores = new Core[regionCount];
+        for (int r = 0; r < regionCount; r++) {
+            for (int i = 0; i < ItemType.COUNT; i++) {
+                if (solver.getDeliveryRate(r, ItemType.get(i)) > 0) candidate[r] = true;
+            }
+        }
+        for (int i = 0; i < buildings.size(); i++) {
+            Building b = buildings.get(i);
+            int region = solver.getRegion(b);
+            if (region < 0) continue;
+            if (b.connectsToPower()) candidate[region] = false;
+            if (b instanceof Core && cores[region] == null) cores[region] = (Core) b;
+        }
+
+        boolean[] parked = new boolean[regionCount];
+        int[] parkedTicks = new int[regionCount];
+        int parkedCount = 0;
+
+        int remaining = ticks;
+        long[] before = deliveredPerRegion(solver);
+        while (remaining > 0) {
+            int window = Math.min(remaining, FAST_FORWARD_PROBE_TICKS);
+            runTicks(window);
+            remaining -= window;
+            long[] after = deliveredPerRegion(solver);
+
+            double windowSeconds = (double) window / TICKS_PER_SECOND;
+            boolean parkedAny = false;
+            for (int r = 0; r < regionCount && remaining > 0; r++) {
+                if (!candidate[r] || parked[r]) continue;
+                if (!isSettled(solver, r, before, after, windowSeconds)) continue;
+
+                parked[r] = true;
+                parkedTicks[r] = remaining;
+                parkedCount++;
+                parkedAny = true;
+            }
+            if (parkedAny) setParked(solver, parked, true);
+            before = after;
+        }
+        setParked(solver, parked, false);
+
+        for (int r = 0; r < regionCount; r++) {
+            if (!parked[r]) continue;
+            double seconds = (double) parkedTicks[r] / TICKS_PER_SECOND;
+            for (int i = 0; i < ItemType.COUNT; i++) {
+                ItemType item = ItemType.get(i);
+                int amount = (int) Math.round(solver.getDeliveryRate(r, item) * seconds);
+                if (amount > 0) cores[r].credit(item, amount);
+            }
+        }
+        return parkedCount;
+    }
+
+    // Whether a region's cores received the solved rates, within the tolerance, between the two counts
+    private boolean isSettled(FlowSolver solver, int region, long[] before, long[] after, double seconds) {
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            int index = region * ItemType.COUNT + i;
+            double predicted = solver.getDeliveryRate(region, ItemType.get(i));
+            double measured = (after[index] - before[index]) / seconds;
+            if (Math.abs(measured - predicted) > Math.max(predicted * FAST_FORWARD_TOLERANCE, 1 / seconds)) return false;
+        }
+        return true;
+    }
+
+    // Items each region's cores have delivered so far (region * ItemType.COUNT + item)
+    private long[] deliveredPerRegion(FlowSolver solver) {
+        long[] delivered = new long[solver.getRegionCount() * ItemType.COUNT];
+        for (int i = 0; i < buildings.size(); i++) {
+            Building b = buildings.get(i);
+            if (!(b instanceof Core)) continue;
+            int region = solver.getRegion(b);
+            for (int k = 0; k < ItemType.COUNT; k++) {
+                delivered[region * ItemType.COUNT + k] += ((Core) b).getDelivered(ItemType.get(k));
+            }
+        }
+        return delivered;
+    }
+
+    // Parks or unparks the buildings and lines of the flagged regions. Parking twice does nothing
+    private void setParked(FlowSolver solver, boolean[] regions, boolean parked) {
+        for (int i = 0; i < buildings.size(); i++) {
+            Building b = buildings.get(i);
+            int region = solver.getRegion(b);
+            if (region < 0 || !regions[region]) continue;
+
+            if (b instanceof Conveyor) {
+                TransportLine line = ((Conveyor) b).getLine();
+                if (line == null) continue;
+                if (parked) line.park();
+                else line.unpark();
+            } else if (parked) {
+                b.park();
+            } else {
+                b.unpark();
+            }
+        }
+    }
+
+    // Advances the world by exactly one fixed step
+    public void tick() {
+        profiler.begin(TickProfiler.Section.TICK);
+        timeTypes = profiler.isEnabled();
+        chunks.setTick(tickCount);
+
+        // Wake what the last tick (and any placement since) woke up, then drop sleepers from the update lists
+        chunks.prepareUpdates(map);
+
+        // Phase 1: Update buildings. They only change their own state and queue push intents
+        profiler.begin(TickProfiler.Section.BUILDING_UPDATES);
+        if (parallel) {
+            // The last leaf wakes this thread. Joining the tree instead (invoke()) would park this thread on a newly
+            // allocated wait node every time the updates are not done yet
+            pendingLeaves.set(leafTaskCount);
+            updatesDone = false;
+            tickThread = Thread.currentThread();
+            pool.execute(rootTask);
+
+            // Like an uninterruptible lock: an interrupt must not turn the wait into a spin, and is kept for the caller
+            boolean interrupted = false;
+            while (!updatesDone) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) interrupted = true;
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+
+            Throwable failure = updateFailure.getAndSet(null);
+            if (failure != null) {
+                if (failure instanceof Error) throw (Error) failure;
+                throw (RuntimeException) failure;
+            }
+        } else {
+            for (int c = 0; c < chunks.getChunkCount(); c++) {
+                updateChunk(c, true);
+            }
+        }
+
+        // Buildings with shared side effects (Core -> GameState) always run on this thread
+        for (int c = 0; c < chunks.getChunkCount(); c++) {
+            updateChunk(c, false);
+        }
+
+        profiler.end(TickProfiler.Section.BUILDING_UPDATES);
+
+        // Phase 2: Commit the queued transfers in chunk order
+        profiler.begin(TickProfiler.Section.TRANSFERS);
+        commitTransfers();
+        profiler.end(TickProfiler.Section.TRANSFERS);
+
+        profiler.begin(TickProfiler.Section.POWER);
+        powerSystem.update(TICK_DELTA);
+        profiler.end(TickProfiler.Section.POWER);
+
+        if (timeTypes) {
+            reportTypeTimes();
+        }
+
+        tickCount++;
+        profiler.end(TickProfiler.Section.TICK);
+    }
+
+    // Updates either the parallel-safe or the serial-only buildings of one chunk, in tile order.
+    // Transport lines only touch their own tiles, so they run with the parallel-safe buildings
+    private void updateChunk(int chunk, boolean parallelUpdate) {
+        List<Building> bucket = chunks.getUpdateList(chunk);
+        long[] nanos = typeNanos[chunk];
+        for (int i = 0; i < bucket.size(); i++) {
+            Building b = bucket.get(i);
+            if (b.parallelUpdate != parallelUpdate) continue;
+
+            if (timeTypes && b.getDefinition().type != null) {
+                long start = System.nanoTime();
+                b.update(TICK_DELTA, map);
+                nanos[b.getDefinition().type.ordinal()] += System.nanoTime() - start;
+            } else {
+                b.update(TICK_DELTA, map);
+            }
+        }
+
+        if (!parallelUpdate) return;
+
+        List<TransportLine> lines = chunks.getLines(chunk);
+        for (int i = 0; i < lines.size(); i++) {
+            TransportLine line = lines.get(i);
+            if (line.asleep) continue;
+            BuildingType type = line.getHead().getDefinition().type;
+
+            if (timeTypes && type != null) {
+                long start = System.nanoTime();
+                line.update();
+                nanos[type.ordinal()] += System.nanoTime() - start;
+            } else {
+                line.update();
+            }
+        }
+    }
+
+    // Sums the per-chunk times of this tick into the profiler and resets them
+    private void reportTypeTimes() {
+        for (int t = 0; t < typeNanos[0].length; t++) {
+            long total = 0;
+            for (int c = 0; c < typeNanos.length; c++) {
+                total += typeNanos[c][t];
+                typeNanos[c][t] = 0;
+            }
+            if (total > 0) profiler.recordBuildingType(t, total);
+        }
+    }
+
+    private void commitTransfers() {
+        // Deliver everything before removing anything, so space freed this tick is not reused until the next one
+        for (int c = 0; c < chunks.getChunkCount(); c++) {
+            chunks.getTransfers(c).deliver(map);
+        }
+        for (int c = 0; c < chunks.getChunkCount(); c++) {
+            chunks.getTransfers(c).complete();
+        }
+        for (int c = 0; c < chunks.getChunkCount(); c++) {
+            chunks.getTransfers(c).settleBlocked(map);
+        }
+    }
+
+    // Splits a range of chunks in half until it is small enough to update directly.
+    // The tasks never complete (exec() returns false), so their status never changes and the same tree is submitted
+    // again every tick without reinitialize(). Nothing joins them either: a worker waiting for a stolen task would park
+    // on a newly allocated wait node. Instead each leaf counts down pendingLeaves, and the last one wakes the tick thread.
+    // Submitting the tree again after that is safe: every task has been taken from its queue and run by then, and what
+    // is left of a branch's exec() on a worker's stack only returns.
+    private class ChunkUpdateTask extends ForkJoinTask<Void> {
+        private static final int CHUNKS_PER_TASK = 2;
+
+        private final int from;
+        private final int to;
+        private final ChunkUpdateTask left;
+        private final ChunkUpdateTask right;
+
+        ChunkUpdateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+
+            if (to - from <= CHUNKS_PER_TASK) {
+                left = null;
+                right = null;
+                leafTaskCount++;
+            } else {
+                int mid = (from + to) >>> 1;
+                left = new ChunkUpdateTask(from, mid);
+                right = new ChunkUpdateTask(mid, to);
+            }
+        }
+
+        @Override
+        protected boolean exec() {
+            if (left != null) {
+                right.fork();
+                left.exec();
+                return false;
+            }
+
+            try {
+                for (int c = from; c < to; c++) {
+                    updateChunk(c, true);
+                }
+            } catch (RuntimeException | Error e) {
+                updateFailure.compareAndSet(null, e); // The tick thread rethrows the first one
+            } finally {
+                if (pendingLeaves.decrementAndGet() == 0) {
+                    updatesDone = true;
+                    LockSupport.unpark(tickThread);
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Void getRawResult() { return null; }
+
+        @Override
+        protected void setRawResult(Void value) { }
+    }
+
+    // --- THREADING ---
+
+    // Switches between serial and multithreaded building updates. Both modes give bit-identical results
+    public void setParallel(boolean parallel) {
+        if (parallel && pool == null) {
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), this::newWorker, null, false);
+        }
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() { return parallel; }
+
+    // Default pool threads, recorded so tests can tell the threads that run ticks apart from everything else
+    private ForkJoinWorkerThread newWorker(ForkJoinPool owner) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(owner);
+        synchronized (workers) {
+            workers.add(worker);
+        }
+        return worker;
+    }
+
+    // Every thread the pool has started since it was created, including ones that have exited since
+    List<Thread> getWorkerThreads() {
+        synchronized (workers) {
+            return new ArrayList<>(workers);
+        }
+    }
+
+    // --- TIME SCALE ---
+
+    public void setTimeScale(TimeScale timeScale) {
+        this.timeScale = timeScale;
+        this.behind = false;
+    }
+
+    public TimeScale getTimeScale() { return timeScale; }
+
+    // True if the last advance() could not run all the ticks the time scale asked for
+    public boolean isBehind() { return behind; }
+
+    // Stops the worker threads
+    public void dispose() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        synchronized (workers) {
+            workers.clear();
+        }
+        parallel = false;
+    }
+
+    // --- PLACEMENT ---
+
+    // Creates a building of the given type and places it if the space is valid. Does not check or pay the cost.
+    public Building placeBuilding(BuildingType type, int x, int y, Direction facing) {
+        Building building = type.create(x, y);
+        building.setFacing(facing);
+
+        if (!canPlaceBuilding(building)) {
+            return null;
+        }
+
+        addBuilding(building);
+        return building;
+    }
+
+    // Check against bounds, occupancy, and Building's own terrain rules
+    public boolean canPlaceBuilding(Building building) {
+        int startX = building.x;
+        int startY = building.y;
+
+        if (startX < 0 || startY < 0 || startX + building.width > width || startY + building.height > height) {
+            return false;
+        }
+
+        for (int i = 0; i < building.width; i++) {
+            for (int j = 0; j < building.height; j++) {
+                Tile t = map[startX + i][startY + j];
+                // Occupied check
+                if (t.building != null) return false;
+
+                // Terrain check
+                if (!building.canBuildOn(t.terrain)) return false;
+            }
+        }
+        return true;
+    }
+
+    // Adds an already validated building to the world
+    public void addBuilding(Building building) {
+        buildings.add(building);
+        chunks.add(building);
+
+        for (int i = 0; i < building.width; i++) {
+            for (int j = 0; j < building.height; j++) {
+                map[building.x + i][building.y + j].building = building;
+            }
+        }
+
+        transportLines.onBuildingAdded(building);
+        powerSystem.onBuildingAdded(building);
+        building.onPlaced(map);
+        building.wakeNeighbors(map); // Blocked neighbors may have a new target
+
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onBuildingAdded(building);
+        }
+    }
+
+    public void removeBuilding(Building building) {
+        if (!buildings.remove(building)) return;
+        chunks.remove(building);
+
+        // Clear the whole footprint
+        for (int i = 0; i < building.width; i++) {
+            for (int j = 0; j < building.height; j++) {
+                if (building.x + i < width && building.y + j < height) {
+                    map[building.x + i][building.y + j].building = null;
+                }
+            }
+        }
+
+        transportLines.onBuildingRemoved(building);
+        powerSystem.onBuildingRemoved(building);
+        building.wakeNeighbors(map);
+
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onBuildingRemoved(building);
+        }
+    }
+
+    public void addBuildingListener(BuildingListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeBuildingListener(BuildingListener listener) {
+        listeners.remove(listener);
+    }
+
+    // --- GETTERS ---
+
+    public Tile[][] getMap() { return map; }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public List<Building> getBuildings() { return buildings; }
+
+    public PowerSystem getPowerSystem() { return powerSystem; }
+
+    public BuildingChunks getChunks() { return chunks; }
+
+    public TickProfiler getProfiler() { return profiler; }
+
+    public long getTickCount() { return tickCount; }
+
+    // Fraction of a tick left in the accumulator (0.0 to 1.0), used to interpolate between ticks
+    public float getAlpha() { return accumulator / TICK_DELTA; }
+}
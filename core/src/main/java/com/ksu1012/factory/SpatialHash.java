@@ -0,0 +1,80 @@
+package com.ksu1012.factory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Uniform grid of buckets keyed by cell coordinates, for finding buildings near a point without scanning all of them.
+ * <p>
+ * Buildings are bucketed by their center. With a cell size equal to the largest connection radius,
+ * every building within range of a point lies in the 3x3 block of cells around it.
+ */
+
+public class SpatialHash {
+    private final float cellSize;
+    private final HashMap<Long, ArrayList<Building>> cells = new HashMap<>();
+
+    public SpatialHash(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void insert(Building b) {
+        cells.computeIfAbsent(keyOf(b), k -> new ArrayList<>()).add(b);
+    }
+
+    public void remove(Building b) {
+        Long key = keyOf(b);
+        ArrayList<Building> cell = cells.get(key);
+        if (cell == null) return;
+
+        cell.remove(b);
+        if (cell.isEmpty()) cells.remove(key);
+    }
+
+    public void clear() {
+        cells.clear();
+    }
+
+    /**
+     * Collects every building whose cell is within one cell of the given point.
+     * Candidates still need an exact distance check.
+     */
+    public void queryNeighbors(float centerX, float centerY, List<Building> out) {
+        int cellX = cellOf(centerX);
+        int cellY = cellOf(centerY);
+
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                ArrayList<Building> cell = cells.get(key(cellX + i, cellY + j));
+                if (cell != null) out.addAll(cell);
+            }
+        }
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private long keyOf(Building b) {
+        return key(cellOf(centerX(b)), cellOf(centerY(b)));
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+
+    // --- BUILDING CENTERS ---
+
+    public static float centerX(Building b) {
+        return b.x + (b.width / 2f);
+    }
+
+    public static float centerY(Building b) {
+        return b.y + (b.height / 2f);
+    }
+}
@@ -0,0 +1,152 @@
+package com.ksu1012.factory;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Draws the ground layer (terrain checkerboard and resource overlay) from cached per-chunk textures.
+ * <p>
+ * Terrain does not change after generation, so instead of submitting one or two sprites per tile every frame,
+ * each {@link BuildingChunks#CHUNK_SIZE} x {@link BuildingChunks#CHUNK_SIZE} block of tiles is painted into a
+ * {@link Pixmap} once and uploaded as a texture:
+ * <ul>
+ *   <li><b>Lazy:</b> A chunk is baked the first time it becomes visible.</li>
+ *   <li><b>Dirty Tracking:</b> {@link #markDirty(int, int)} flags the chunk of a changed tile, which is re-baked
+ *   into its existing texture the next time it is drawn.</li>
+ * </ul>
+ * Ground rendering becomes one draw call per visible chunk, regardless of zoom.
+ */
+
+public class TerrainRenderer implements Disposable {
+    private static final int CHUNK_SIZE = BuildingChunks.CHUNK_SIZE;
+    private static final int TEXELS_PER_TILE = 8; // Enough to keep the resource inset at 1/8 of a tile
+    private static final int RESOURCE_MARGIN = 1; // In texels
+
+    private final Tile[][] map;
+    private final int tileSize;
+    private final int chunksX;
+    private final int chunksY;
+
+    private final Texture[] textures;
+    private final boolean[] dirty;
+
+    public TerrainRenderer(Tile[][] map, int tileSize) {
+        this.map = map;
+        this.tileSize = tileSize;
+        this.chunksX = (map.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunksY = (map[0].length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        this.textures = new Texture[chunksX * chunksY];
+        this.dirty = new boolean[chunksX * chunksY];
+    }
+
+    /**
+     * Draws every chunk overlapping the given tile range (end exclusive).
+     * The batch must already be started.
+     */
+    public void draw(Batch batch, int startX, int startY, int endX, int endY) {
+        if (endX <= startX || endY <= startY) return;
+
+        int firstChunkX = startX / CHUNK_SIZE;
+        int firstChunkY = startY / CHUNK_SIZE;
+        int lastChunkX = Math.min(chunksX - 1, (endX - 1) / CHUNK_SIZE);
+        int lastChunkY = Math.min(chunksY - 1, (endY - 1) / CHUNK_SIZE);
+
+        batch.setColor(Color.WHITE);
+        for (int cx = firstChunkX; cx <= lastChunkX; cx++) {
+            for (int cy = firstChunkY; cy <= lastChunkY; cy++) {
+                Texture texture = getTexture(cx, cy);
+
+                batch.draw(texture,
+                    cx * CHUNK_SIZE * tileSize,
+                    cy * CHUNK_SIZE * tileSize,
+                    chunkWidth(cx) * tileSize,
+                    chunkHeight(cy) * tileSize);
+            }
+        }
+    }
+
+    // Flags the chunk containing the tile for re-baking (e.g. after terrain or a resource changed)
+    public void markDirty(int tileX, int tileY) {
+        dirty[(tileY / CHUNK_SIZE) * chunksX + (tileX / CHUNK_SIZE)] = true;
+    }
+
+    public void markAllDirty() {
+        for (int i = 0; i < dirty.length; i++) {
+            dirty[i] = true;
+        }
+    }
+
+    private Texture getTexture(int cx, int cy) {
+        int index = cy * chunksX + cx;
+        Texture texture = textures[index];
+
+        if (texture == null || dirty[index]) {
+            Pixmap pixmap = bake(cx, cy);
+            if (texture == null) {
+                texture = new Texture(pixmap);
+                texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+                textures[index] = texture;
+            } else {
+                texture.draw(pixmap, 0, 0);
+            }
+            pixmap.dispose();
+            dirty[index] = false;
+        }
+        return texture;
+    }
+
+    // Paints one chunk, one block of texels per tile
+    private Pixmap bake(int cx, int cy) {
+        int tilesX = chunkWidth(cx);
+        int tilesY = chunkHeight(cy);
+
+        Pixmap pixmap = new Pixmap(tilesX * TEXELS_PER_TILE, tilesY * TEXELS_PER_TILE, Pixmap.Format.RGB888);
+        pixmap.setBlending(Pixmap.Blending.None);
+
+        for (int i = 0; i < tilesX; i++) {
+            for (int j = 0; j < tilesY; j++) {
+                int x = cx * CHUNK_SIZE + i;
+                int y = cy * CHUNK_SIZE + j;
+                Tile tile = map[x][y];
+
+                // Pixmap rows run top to bottom, world rows bottom to top
+                int px = i * TEXELS_PER_TILE;
+                int py = (tilesY - 1 - j) * TEXELS_PER_TILE;
+
+                // Base Terrain layer (checkerboard)
+                pixmap.setColor((x + y) % 2 == 0 ? tile.terrain.color1 : tile.terrain.color2);
+                pixmap.fillRectangle(px, py, TEXELS_PER_TILE, TEXELS_PER_TILE);
+
+                // Resource Layer
+                if (tile.resource != null) {
+                    pixmap.setColor(tile.resource.color);
+                    pixmap.fillRectangle(px + RESOURCE_MARGIN, py + RESOURCE_MARGIN,
+                        TEXELS_PER_TILE - RESOURCE_MARGIN * 2, TEXELS_PER_TILE - RESOURCE_MARGIN * 2);
+                }
+            }
+        }
+        return pixmap;
+    }
+
+    private int chunkWidth(int cx) {
+        return Math.min(CHUNK_SIZE, map.length - cx * CHUNK_SIZE);
+    }
+
+    private int chunkHeight(int cy) {
+        return Math.min(CHUNK_SIZE, map[0].length - cy * CHUNK_SIZE);
+    }
+
+    @Override
+    public void dispose() {
+        for (int i = 0; i < textures.length; i++) {
+            if (textures[i] != null) {
+                textures[i].dispose();
+                textures[i] = null;
+            }
+        }
+    }
+}
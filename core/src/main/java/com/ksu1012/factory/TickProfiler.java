@@ -0,0 +1,151 @@
+package com.ksu1012.factory;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Lightweight instrumentation for the simulation and the render loop.
+ * <p>
+ * Features:
+ * <ul>
+ *   <li><b>Spans:</b> {@link #begin(Section)} / {@link #end(Section)} measure a subsystem with {@link System#nanoTime()}
+ *   and record it into a {@link RollingHistogram} of the last {@link #WINDOW} samples.</li>
+ *   <li><b>Per-Type Cost:</b> The {@link Simulation} times every building update by {@link BuildingType} and reports the
+ *   total per tick through {@link #recordBuildingType(int, long)}.</li>
+ *   <li><b>Export:</b> {@link #writeCsv(Writer)} dumps average, p50, p99 and max of every histogram.</li>
+ * </ul>
+ * Disabled by default. While disabled every call returns immediately, and no call ever allocates.
+ */
+
+public class TickProfiler {
+    public enum Section {
+        // Per tick
+        TICK("Tick"),
+        BUILDING_UPDATES("Building updates"),
+        TRANSFERS("Transfers"),
+        POWER("Power"),
+
+        // Per frame
+        FRAME("Frame"),
+        DRAW_GROUND("Draw ground"),
+        DRAW_BUILDINGS("Draw buildings"),
+        DRAW_POWER_LINES("Draw power lines"),
+        DRAW_UI("Draw UI");
+
+        public final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+    }
+
+    public static final int WINDOW = 240; // Samples kept per histogram
+
+    private static final Section[] SECTIONS = Section.values();
+    private static final BuildingType[] TYPES = BuildingType.values();
+
+    private boolean enabled = false;
+
+    private final long[] spanStarts = new long[SECTIONS.length];
+    private final RollingHistogram[] sections = new RollingHistogram[SECTIONS.length];
+    private final RollingHistogram[] buildingTypes = new RollingHistogram[TYPES.length];
+
+    public TickProfiler() {
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new RollingHistogram(WINDOW);
+        }
+        for (int i = 0; i < buildingTypes.length; i++) {
+            buildingTypes[i] = new RollingHistogram(WINDOW);
+        }
+    }
+
+    // --- RECORDING ---
+
+    public void begin(Section section) {
+        if (!enabled) return;
+        spanStarts[section.ordinal()] = System.nanoTime();
+    }
+
+    public void end(Section section) {
+        if (!enabled) return;
+        sections[section.ordinal()].record(System.nanoTime() - spanStarts[section.ordinal()]);
+    }
+
+    // Total update time of all buildings of one type during one tick
+    public void recordBuildingType(int typeOrdinal, long nanos) {
+        if (!enabled) return;
+        buildingTypes[typeOrdinal].record(nanos);
+    }
+
+    // --- CONTROL ---
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Starts with empty histograms every time it is switched on
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            for (RollingHistogram h : sections) h.clear();
+            for (RollingHistogram h : buildingTypes) h.clear();
+        }
+        this.enabled = enabled;
+    }
+
+    public RollingHistogram getHistogram(Section section) {
+        return sections[section.ordinal()];
+    }
+
+    public RollingHistogram getHistogram(BuildingType type) {
+        return buildingTypes[type.ordinal()];
+    }
+
+    // --- OUTPUT ---
+
+    // Appends one line per recorded histogram (average and p99 in microseconds) for the overlay
+    public void appendSummary(StringBuilder out) {
+        out.append("[PROFILER]  avg / p99 us\n");
+        for (int i = 0; i < SECTIONS.length; i++) {
+            if (sections[i].getCount() == 0) continue;
+            appendLine(out, SECTIONS[i].label, sections[i]);
+        }
+
+        out.append("[BUILDINGS PER TICK]\n");
+        for (int i = 0; i < TYPES.length; i++) {
+            if (buildingTypes[i].getCount() == 0) continue;
+            appendLine(out, TYPES[i].displayName, buildingTypes[i]);
+        }
+    }
+
+    private void appendLine(StringBuilder out, String label, RollingHistogram h) {
+        out.append(label).append(": ");
+        appendMicros(out, h.getAverage());
+        out.append(" / ");
+        appendMicros(out, h.getPercentile(0.99f));
+        out.append('\n');
+    }
+
+    // Nanoseconds as microseconds with one decimal, without String.format
+    private static void appendMicros(StringBuilder out, long nanos) {
+        long tenths = nanos / 100;
+        out.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    public void writeCsv(Writer out) throws IOException {
+        out.write("name,samples,avg_us,p50_us,p99_us,max_us\n");
+        for (int i = 0; i < SECTIONS.length; i++) {
+            writeRow(out, SECTIONS[i].name(), sections[i]);
+        }
+        for (int i = 0; i < TYPES.length; i++) {
+            writeRow(out, "type:" + TYPES[i].name(), buildingTypes[i]);
+        }
+    }
+
+    private void writeRow(Writer out, String name, RollingHistogram h) throws IOException {
+        out.write(name + "," + h.getCount()
+            + "," + (h.getAverage() / 1000.0)
+            + "," + (h.getPercentile(0.5f) / 1000.0)
+            + "," + (h.getPercentile(0.99f) / 1000.0)
+            + "," + (h.getMax() / 1000.0) + "\n");
+    }
+}
@@ -0,0 +1,32 @@
+package com.ksu1012.factory;
+
+/**
+ * Simulation speed relative to real time, see {@link Simulation#setTimeScale(TimeScale)}.
+ */
+
+public enum TimeScale {
+    NORMAL(1, "1x"),
+    FAST(4, "4x"),
+    FASTER(16, "16x"),
+    MAX(0, "Max"); // As many ticks as fit into the frame budget
+
+    public final int factor; // Simulated seconds per real second, 0 for unlimited
+    public final String label;
+
+    TimeScale(int factor, String label) {
+        this.factor = factor;
+        this.label = label;
+    }
+
+    public boolean isUnlimited() {
+        return factor == 0;
+    }
+
+    public TimeScale faster() {
+        return this == MAX ? MAX : values()[ordinal() + 1];
+    }
+
+    public TimeScale slower() {
+        return this == NORMAL ? NORMAL : values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,75 @@
+package com.ksu1012.factory;
+
+import java.util.Arrays;
+
+/**
+ * Wakes sleeping buildings on the tick their next timer completes (a mined item, a finished craft, burnt-out fuel).
+ * <p>
+ * A hashed timer wheel with one slot per tick:
+ * <ul>
+ *   <li><b>Scheduling:</b> O(1), the entry is appended to the slot of its tick modulo the wheel size.</li>
+ *   <li><b>Advancing:</b> Each tick only looks at its own slot. Entries due in a later turn of the wheel stay in
+ *   the slot until their turn comes, which is rare since the wheel is longer than the usual cycles.</li>
+ *   <li><b>Cancelling:</b> Lazy. A building that was woken early or rescheduled keeps its old entry, which is dropped
+ *   when its slot comes up because it no longer matches the building's {@code wakeTick}.</li>
+ * </ul>
+ * Storage is a set of parallel arrays per slot that only grow, so steady-state ticks do not allocate.
+ */
+
+public class TimerWheel {
+    private static final int SIZE = 256; // Power of two, longer than most cycles (a basic drill mines every 20 ticks)
+    private static final int MASK = SIZE - 1;
+
+    private final Building[][] buildings = new Building[SIZE][];
+    private final long[][] ticks = new long[SIZE][];
+    private final int[] counts = new int[SIZE];
+
+    public TimerWheel() {
+        for (int i = 0; i < SIZE; i++) {
+            buildings[i] = new Building[4];
+            ticks[i] = new long[4];
+        }
+    }
+
+    // Wakes b on the given tick, unless it has been woken or rescheduled by then
+    public void schedule(Building b, long tick) {
+        int slot = (int) (tick & MASK);
+        int count = counts[slot];
+        if (count == buildings[slot].length) {
+            buildings[slot] = Arrays.copyOf(buildings[slot], count * 2);
+            ticks[slot] = Arrays.copyOf(ticks[slot], count * 2);
+        }
+        buildings[slot][count] = b;
+        ticks[slot][count] = tick;
+        counts[slot] = count + 1;
+    }
+
+    // Wakes everything due on this tick. Has to be called for every tick, in order
+    public void advance(long tick) {
+        int slot = (int) (tick & MASK);
+        Building[] slotBuildings = buildings[slot];
+        long[] slotTicks = ticks[slot];
+        int count = counts[slot];
+
+        // Keep the entries of later turns, compacted to the front
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            Building b = slotBuildings[i];
+            long due = slotTicks[i];
+
+            if (due > tick) {
+                slotBuildings[kept] = b;
+                slotTicks[kept] = due;
+                kept++;
+                continue;
+            }
+
+            if (b.asleep && b.wakeTick == due) {
+                b.wake();
+            }
+        }
+
+        Arrays.fill(slotBuildings, kept, count, null); // Don't keep removed buildings alive
+        counts[slot] = kept;
+    }
+}
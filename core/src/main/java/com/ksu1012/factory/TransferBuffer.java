@@ -0,0 +1,94 @@
+package com.ksu1012.factory;
+
+/**
+ * Queue of item push intents recorded during the update phase of a tick.
+ * <p>
+ * Buildings never write into a neighbor's inventory while updating. They call {@code tryPushItem}, which appends
+ * an intent here, and the simulation applies all intents afterwards in two passes:
+ * <ol>
+ *   <li><b>Deliver:</b> Each intent offers its item to the source's output neighbors. Capacity is checked against
+ *   the start-of-tick inventories plus what was delivered so far, so space freed this tick is only usable next tick.</li>
+ *   <li><b>Complete:</b> Delivered items are removed from their sources.</li>
+ *   <li><b>Blocked:</b> Once every chunk has completed, sources whose push found no room may fall asleep
+ *   until their target changes (see {@link Building#onPushBlocked(Tile[][])}).</li>
+ * </ol>
+ * Because of this an item moves at most one building per tick, regardless of the order buildings were updated in.
+ * Storage is a set of parallel arrays that only grow, so steady-state ticks do not allocate.
+ */
+
+public class TransferBuffer {
+    private Building[] sources;
+    private ItemType[] items;
+    private boolean[] delivered;
+    private int size = 0;
+
+    // Sources with a failed push this tick (a source can appear more than once)
+    private Building[] blocked;
+    private int blockedCount = 0;
+
+    public TransferBuffer(int initialCapacity) {
+        sources = new Building[initialCapacity];
+        items = new ItemType[initialCapacity];
+        delivered = new boolean[initialCapacity];
+        blocked = new Building[initialCapacity];
+    }
+
+    public void add(Building source, ItemType item) {
+        if (size == sources.length) {
+            grow();
+        }
+        sources[size] = source;
+        items[size] = item;
+        size++;
+    }
+
+    // Pass 1: Insert every queued item into a neighbor of its source, if one accepts it
+    public void deliver(Tile[][] grid) {
+        for (int i = 0; i < size; i++) {
+            delivered[i] = sources[i].deliverItem(grid, items[i]);
+        }
+    }
+
+    // Pass 2: Remove delivered items from their sources and empty the buffer
+    public void complete() {
+        for (int i = 0; i < size; i++) {
+            Building source = sources[i];
+            source.queuedPushes = 0;
+            if (delivered[i]) {
+                source.completePush(items[i]);
+            } else {
+                blocked[blockedCount++] = source;
+            }
+
+            sources[i] = null; // Don't keep removed buildings alive
+        }
+        size = 0;
+    }
+
+    // Pass 3: Lets the sources of failed pushes decide whether to sleep, now that every transfer of the tick is done
+    public void settleBlocked(Tile[][] grid) {
+        for (int i = 0; i < blockedCount; i++) {
+            blocked[i].onPushBlocked(grid);
+            blocked[i] = null;
+        }
+        blockedCount = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, sources.length * 2);
+
+        Building[] newSources = new Building[capacity];
+        ItemType[] newItems = new ItemType[capacity];
+        System.arraycopy(sources, 0, newSources, 0, size);
+        System.arraycopy(items, 0, newItems, 0, size);
+
+        sources = newSources;
+        items = newItems;
+        delivered = new boolean[capacity];
+        blocked = new Building[capacity];
+    }
+}
@@ -0,0 +1,248 @@
+package com.ksu1012.factory;
+
+/**
+ * A straight run of conveyors of the same type and facing, simulated as one object.
+ * <p>
+ * Responsibilities:
+ * <ul>
+ *   <li><b>Compact Items:</b> The items on the line are kept head first in a ring of parallel arrays: the number of
+ *   empty tiles in front of each item (its gap), its type and the tick it arrived on its tile. The tiles still hold
+ *   their item, so rendering, side-loading and removal work on single conveyors as before.</li>
+ *   <li><b>Cheap Updates:</b> A tick costs O(items): only items with a gap in front of them can move. An empty line,
+ *   or a compressed one where no item has a gap, costs O(1) besides the push out of the head.</li>
+ *   <li><b>Same Rules As Single Belts:</b> An item crosses a tile in {@link Conveyor#ticksPerTile} ticks and only
+ *   moves into a tile that was free at the start of the tick. Items leave the head tile through the
+ *   {@link TransferBuffer} like any other push.</li>
+ * </ul>
+ * An empty line, or a compressed one whose head item has nowhere to go, sleeps until an item is inserted or the
+ * head's target changes.
+ * Lines are created, split and merged by {@link TransportLines} when conveyors are placed or removed.
+ * A line is updated by the chunk of its head tile and only touches its own tiles, so chunks can still be updated in parallel.
+ */
+
+public class TransportLine {
+    // Tiles from the head (index 0, the end items leave through) to the tail
+    final Conveyor[] tiles;
+    private final int ticksPerTile;
+
+    // Ring of items, head first. gaps[i] is the number of empty tiles between item i and the item (or line end) in front of it
+    private final int[] gaps;
+    private final ItemType[] items;
+    private final long[] arrivals;
+    private int first = 0;
+    private int count = 0;
+
+    private int gappedItems = 0; // Items with a gap in front of them, the only ones that can move inside the line
+    private int lastPos = -1; // Tile index of the last item
+
+    // Provides the tick (arrivals are stamped with it) and queues wakes for side-loaders
+    private final BuildingChunks chunks;
+
+    // Chunk that updates this line (the chunk of the head tile), maintained by BuildingChunks
+    int chunkIndex = -1;
+
+    // Skipped by the update loop until an item arrives or the head's target changes
+    boolean asleep = false;
+    boolean parked = false; // Asleep until unparked (see Simulation.fastForward)
+
+    TransportLine(Conveyor[] tiles, BuildingChunks chunks) {
+        this.tiles = tiles;
+        this.chunks = chunks;
+        this.ticksPerTile = tiles[0].ticksPerTile;
+
+        gaps = new int[tiles.length];
+        items = new ItemType[tiles.length];
+        arrivals = new long[tiles.length];
+
+        // Pick up the items the tiles already hold (e.g. after a split or merge)
+        for (int i = 0; i < tiles.length; i++) {
+            Conveyor tile = tiles[i];
+            tile.line = this;
+            tile.lineIndex = i;
+
+            ItemType item = tile.getFirstItem();
+            if (item != null) append(i, item, tile.arrivalTick);
+        }
+    }
+
+    /**
+     * Advances the line by one tick. Queues the head item's push and moves every other item that is ready
+     * into a free tile in front of it.
+     */
+    void update() {
+        if (count == 0) {
+            asleep = true; // Nothing to do until an item is inserted
+            return;
+        }
+        long tick = tick();
+
+        // The head item leaves through the transfer buffer. completePush() calls onHeadPushed() if it was delivered
+        int head = first;
+        if (gaps[head] == 0 && tick - arrivals[head] >= ticksPerTile) {
+            tiles[0].tryPushItem(items[head]);
+        }
+
+        if (gappedItems == 0) return; // Compressed: nothing inside the line can move
+
+        // Tail to head, so a tile vacated this tick is not refilled until the next one
+        int pos = lastPos;
+        for (int i = count - 1; i >= 0; i--) {
+            int slot = slot(i);
+            int gap = gaps[slot];
+
+            if (gap > 0 && tick - arrivals[slot] >= ticksPerTile) {
+                move(i, slot, pos, tick);
+                pos--;
+                gap--;
+            }
+            pos -= gap + 1;
+        }
+    }
+
+    // Moves item i (at tile pos) one tile towards the head
+    private void move(int i, int slot, int pos, long tick) {
+        ItemType item = items[slot];
+
+        gaps[slot]--;
+        if (gaps[slot] == 0) gappedItems--;
+
+        if (i + 1 < count) {
+            int behind = slot(i + 1);
+            if (gaps[behind] == 0) gappedItems++;
+            gaps[behind]++;
+        } else {
+            lastPos--;
+        }
+        arrivals[slot] = tick;
+
+        Conveyor from = tiles[pos];
+        Conveyor to = tiles[pos - 1];
+        from.removeInternalItem(item, 1);
+        from.vacatedTick = tick;
+        to.addInternalItem(item, 1);
+        to.arrivalTick = tick;
+
+        // A side-loader waiting for this tile can use it from the next tick on
+        if (from.feederAsleep) chunks.queueFeederWake(chunkIndex, from);
+    }
+
+    // Commit phase: the head item was delivered and already removed from the head tile
+    void onHeadPushed() {
+        int head = first;
+        items[head] = null;
+        first = slot(1);
+        count--;
+
+        if (count == 0) {
+            lastPos = -1;
+            return;
+        }
+
+        // The next item now has the head tile in front of it as well
+        int next = first;
+        if (gaps[next] == 0) gappedItems++;
+        gaps[next] += gaps[head] + 1;
+    }
+
+    /**
+     * Commit phase: an item is delivered onto one of the tiles from outside the line (its tail or side).
+     * The caller checked that the tile is free.
+     */
+    void insert(Conveyor tile, ItemType item) {
+        long tick = tick();
+        asleep = false;
+
+        int index = tile.lineIndex;
+        tile.addInternalItem(item, 1);
+        tile.arrivalTick = tick;
+
+        if (index > lastPos) {
+            append(index, item, tick);
+            return;
+        }
+
+        // Find the first item behind the new one and split its gap
+        int pos = -1;
+        for (int i = 0; i < count; i++) {
+            int slot = slot(i);
+            int next = pos + gaps[slot] + 1;
+            if (next > index) {
+                // Shift the items from i on back by one
+                for (int j = count; j > i; j--) {
+                    int to = slot(j);
+                    int from = slot(j - 1);
+                    gaps[to] = gaps[from];
+                    items[to] = items[from];
+                    arrivals[to] = arrivals[from];
+                }
+
+                if (gaps[slot] > 0) gappedItems--;
+                count++;
+
+                int newGap = index - pos - 1;
+                int behindGap = next - index - 1;
+                gaps[slot] = newGap;
+                items[slot] = item;
+                arrivals[slot] = tick;
+                gaps[slot(i + 1)] = behindGap;
+                if (newGap > 0) gappedItems++;
+                if (behindGap > 0) gappedItems++;
+                return;
+            }
+            pos = next;
+        }
+    }
+
+    // Commit phase, after all transfers: the head item found no room. A compressed line can then only change when
+    // the target does, which wakes it (Conveyor.wake())
+    void onPushBlocked(Tile[][] grid) {
+        if (gappedItems == 0 && count > 0 && tiles[0].isOutputBlocked(grid, items[first])) {
+            asleep = true;
+        }
+    }
+
+    void wake() {
+        if (!parked) asleep = false;
+    }
+
+    void park() {
+        asleep = true;
+        parked = true;
+    }
+
+    void unpark() {
+        parked = false;
+        asleep = false;
+    }
+
+    // The tick being run, or the last one between ticks
+    long tick() {
+        return chunks.getTick();
+    }
+
+    private void append(int index, ItemType item, long arrival) {
+        int slot = slot(count);
+        int gap = index - lastPos - 1;
+
+        gaps[slot] = gap;
+        items[slot] = item;
+        arrivals[slot] = arrival;
+        if (gap > 0) gappedItems++;
+
+        count++;
+        lastPos = index;
+    }
+
+    private int slot(int i) {
+        int slot = first + i;
+        return (slot >= gaps.length) ? slot - gaps.length : slot;
+    }
+
+    // --- GETTERS ---
+
+    public Conveyor getHead() { return tiles[0]; }
+
+    public int getLength() { return tiles.length; }
+
+    public int getItemCount() { return count; }
+}
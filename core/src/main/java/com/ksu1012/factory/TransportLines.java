@@ -0,0 +1,99 @@
+package com.ksu1012.factory;
+
+import java.util.ArrayList;
+
+/**
+ * Keeps every conveyor in exactly one {@link TransportLine}.
+ * <p>
+ * A line is a maximal straight run of conveyors with the same definition and facing, where each tile feeds the next.
+ * Placing a conveyor merges it with the lines directly behind and in front of it; removing one splits its line in two.
+ * Affected lines are rebuilt from their tiles, which keep their items, so no item is lost except the one on a removed tile.
+ */
+
+public class TransportLines {
+    private final Tile[][] map;
+    private final BuildingChunks chunks;
+
+    // Reused by rebuilds
+    private final ArrayList<Conveyor> run = new ArrayList<>();
+
+    public TransportLines(Tile[][] map, BuildingChunks chunks) {
+        this.map = map;
+        this.chunks = chunks;
+    }
+
+    public void onBuildingAdded(Building b) {
+        if (!(b instanceof Conveyor)) return;
+        Conveyor conveyor = (Conveyor) b;
+
+        // The lines behind and in front are absorbed into the new one
+        Conveyor behind = previous(conveyor);
+        Conveyor ahead = next(conveyor);
+        if (behind != null) detach(behind.line);
+        if (ahead != null) detach(ahead.line);
+
+        build(conveyor);
+    }
+
+    public void onBuildingRemoved(Building b) {
+        if (!(b instanceof Conveyor)) return;
+        Conveyor conveyor = (Conveyor) b;
+        TransportLine line = conveyor.line;
+        if (line == null) return;
+
+        detach(line);
+        conveyor.line = null;
+        conveyor.lineIndex = -1;
+
+        // The tile is already cleared from the map, so the walks stop at the gap
+        Conveyor[] tiles = line.tiles;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] != conveyor && tiles[i].line == null) build(tiles[i]);
+        }
+    }
+
+    // Removes a line from its chunk and from its tiles
+    private void detach(TransportLine line) {
+        if (line == null) return;
+        chunks.removeLine(line);
+        for (int i = 0; i < line.tiles.length; i++) {
+            line.tiles[i].line = null;
+        }
+    }
+
+    // Creates the line containing the given conveyor
+    private void build(Conveyor start) {
+        // Walk to the head, then collect the run back to the tail
+        Conveyor head = start;
+        for (Conveyor n = next(head); n != null; n = next(n)) {
+            head = n;
+        }
+
+        run.clear();
+        for (Conveyor c = head; c != null; c = previous(c)) {
+            run.add(c);
+        }
+
+        TransportLine line = new TransportLine(run.toArray(new Conveyor[0]), chunks);
+        chunks.addLine(line);
+    }
+
+    // The conveyor this one feeds into, if it continues the same line
+    private Conveyor next(Conveyor c) {
+        return continuation(c, c.x + c.facing.dx, c.y + c.facing.dy);
+    }
+
+    // The conveyor feeding into this one, if it is part of the same line
+    private Conveyor previous(Conveyor c) {
+        return continuation(c, c.x - c.facing.dx, c.y - c.facing.dy);
+    }
+
+    private Conveyor continuation(Conveyor c, int x, int y) {
+        if (x < 0 || y < 0 || x >= map.length || y >= map[0].length) return null;
+
+        Building b = map[x][y].building;
+        if (!(b instanceof Conveyor) || b == c) return null;
+        if (b.getDefinition() != c.getDefinition() || b.facing != c.facing) return null;
+        return (Conveyor) b;
+    }
+}
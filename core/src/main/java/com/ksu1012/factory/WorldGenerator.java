@@ -1,6 +1,7 @@
 package com.ksu1012.factory;
 
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Vector2;
 
 import java.util.ArrayList;
@@ -23,13 +24,25 @@ public class WorldGenerator {
     private int height;
     private long seed;
 
+    // All randomness goes through this generator so the same seed always produces the same map
+    private RandomXS128 random;
+
     public WorldGenerator(int width, int height) {
+        this(width, height, MathUtils.random(1000000));
+    }
+
+    public WorldGenerator(int width, int height, long seed) {
         this.width = width;
         this.height = height;
-        this.seed = MathUtils.random(1000000);
+        this.seed = seed;
+        this.random = new RandomXS128(seed);
         System.out.println("Seed: " + seed);
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
     public Tile[][] generate() {
         Tile[][] map = new Tile[width][height];
 
@@ -110,20 +123,20 @@ public class WorldGenerator {
     // Create streaks of ores
     private void generateVeins(Tile[][] map, ResourceType type, int count, int avgLength) {
         for (int i = 0; i < count; i++) {
-            float x = MathUtils.random(5, width - 5);
-            float y = MathUtils.random(5, height - 5);
+            float x = randomInt(5, width - 5);
+            float y = randomInt(5, height - 5);
 
-            Vector2 dir = new Vector2(1, 0).setToRandomDirection();
+            Vector2 dir = new Vector2(1, 0).rotateDeg(randomFloat(0f, 360f));
 
             // Randomize length slightly
-            int length = MathUtils.random((int)(avgLength * 0.8f), (int)(avgLength * 1.2f));
+            int length = randomInt((int)(avgLength * 0.8f), (int)(avgLength * 1.2f));
 
             // Thickness pulser
-            float thickness = MathUtils.random(1.25f, 1.75f);
+            float thickness = randomFloat(1.25f, 1.75f);
 
             for (int step = 0; step < length; step++) {
                 // Vary thickness
-                thickness += MathUtils.random(-0.3f, 0.3f);
+                thickness += randomFloat(-0.3f, 0.3f);
                 thickness = MathUtils.clamp(thickness, 1.0f, 2.0f);
 
                 // Create rough edges
@@ -133,7 +146,7 @@ public class WorldGenerator {
                 y += dir.y;
 
                 // Wiggle direction
-                dir.rotateDeg(MathUtils.random(-15f, 15f));
+                dir.rotateDeg(randomFloat(-15f, 15f));
 
                 if (x < 3 || x >= width - 3 || y < 3 || y >= height - 3) break;
             }
@@ -143,8 +156,8 @@ public class WorldGenerator {
     // Create blob-like ore veins
     private void generateClusters(Tile[][] map, ResourceType type, int count, int size) {
         for (int i = 0; i < count; i++) {
-            int startX = MathUtils.random(5, width - 5);
-            int startY = MathUtils.random(5, height - 5);
+            int startX = randomInt(5, width - 5);
+            int startY = randomInt(5, height - 5);
 
             // List of tiles in this cluster we can grow from
             List<Vector2> growthFrontier = new ArrayList<>();
@@ -153,7 +166,7 @@ public class WorldGenerator {
             int placed = 0;
             while (placed < size && !growthFrontier.isEmpty()) {
                 // Pick a random tile from the frontier to grow from
-                int randIndex = MathUtils.random(0, growthFrontier.size() - 1);
+                int randIndex = randomInt(0, growthFrontier.size() - 1);
                 Vector2 current = growthFrontier.get(randIndex);
 
                 int cx = (int)current.x;
@@ -194,7 +207,7 @@ public class WorldGenerator {
                     if (dist < radius - 0.5f) {
                         shouldPaint = true; // Solid center
                     } else if (dist <= radius + 0.5f) {
-                        shouldPaint = MathUtils.randomBoolean(0.6f); // Fuzzy edge
+                        shouldPaint = random.nextFloat() < 0.6f; // Fuzzy edge
                     }
 
                     if (shouldPaint && map[x][y].terrain.isBuildable) {
@@ -204,4 +217,15 @@ public class WorldGenerator {
             }
         }
     }
+
+    // --- SEEDED RANDOM HELPERS ---
+
+    // Inclusive on both ends, like MathUtils.random(int, int)
+    private int randomInt(int start, int end) {
+        return start + random.nextInt(end - start + 1);
+    }
+
+    private float randomFloat(float start, float end) {
+        return start + random.nextFloat() * (end - start);
+    }
 }
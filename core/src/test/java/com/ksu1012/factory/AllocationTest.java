@@ -0,0 +1,195 @@
+package com.ksu1012.factory;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation regression test for the simulation tick.
+ * <p>
+ * Builds a small factory that uses every building type (drills, belts, smelters, generator, pole, battery, core),
+ * runs it into a steady state and then measures the bytes allocated while ticking with
+ * {@link ThreadMXBean#getThreadAllocatedBytes(long[])}. Fails if any measured round allocates anything, both for
+ * the serial tick and for the parallel one the game runs (the ticking thread plus the simulation's ForkJoinPool workers).
+ * <p>
+ * A run that allocated is repeated once from scratch. The simulation is deterministic, so a leak in it (even one that
+ * only allocates now and then, like a list that keeps growing) allocates at the same ticks again. The JVM's one-time
+ * work does not: e.g. linking a call site when a rarely taken branch of the pool's own scan code first runs.
+ */
+
+public class AllocationTest {
+    private static final int MAP_SIZE = 96;
+    private static final int WARMUP_TICKS = 100000; // Lets the JIT compile the tick on every thread and the belts fill up
+    private static final int MEASURED_TICKS = 10000;
+    // Checked after one more round that is not, for late JIT compiles. They end past twice the tick they start at, so a
+    // list that grows with the tick count (by 1.5x or 2x) has to grow during them
+    private static final int MEASURED_ROUNDS = 12;
+
+    @Test
+    public void serialTickDoesNotAllocate() {
+        assertNoAllocation(false);
+    }
+
+    @Test
+    public void parallelTickDoesNotAllocate() {
+        assertNoAllocation(true);
+    }
+
+    private static void assertNoAllocation(boolean parallel) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "thread allocation counters not supported by this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        String failure = measure(threads, parallel);
+        if (failure != null) {
+            failure = measure(threads, parallel);
+        }
+        assertNull(failure, failure);
+    }
+
+    // Runs a fresh factory into a steady state and measures its rounds. Returns why it failed, or null
+    private static String measure(ThreadMXBean threads, boolean parallel) {
+        String mode = parallel ? "Parallel" : "Serial";
+        GameState.instance = new GameState();
+        Simulation simulation = buildFactory();
+        simulation.setParallel(parallel);
+        try {
+            simulation.runTicks(WARMUP_TICKS);
+
+            long[] ids = tickingThreads(simulation);
+            long[] before = new long[ids.length];
+            long[] after = new long[ids.length];
+
+            // Cost of the measurement itself, subtracted from the result
+            allocatedBytes(threads, ids, before);
+            allocatedBytes(threads, ids, after);
+            long overhead = after[0] - before[0];
+
+            for (int round = 0; round <= MEASURED_ROUNDS; round++) {
+                allocatedBytes(threads, ids, before);
+                simulation.runTicks(MEASURED_TICKS);
+                allocatedBytes(threads, ids, after);
+
+                long allocated = -overhead;
+                for (int i = 0; i < ids.length; i++) {
+                    if (before[i] >= 0 && after[i] >= 0) allocated += after[i] - before[i];
+                }
+
+                if (tickingThreads(simulation).length != ids.length) {
+                    return mode + " tick started new pool workers in round " + round;
+                }
+                if (round > 0 && allocated != 0) {
+                    return mode + " steady-state tick allocated " + allocated + " bytes over " + MEASURED_TICKS
+                        + " ticks in round " + round + " (" + simulation.getBuildings().size() + " buildings)";
+                }
+            }
+            return null;
+        } finally {
+            simulation.dispose();
+        }
+    }
+
+    // This thread first, then every worker the simulation's pool has started (the only other threads that run ticks)
+    private static long[] tickingThreads(Simulation simulation) {
+        List<Thread> workers = simulation.getWorkerThreads();
+        long[] ids = new long[workers.size() + 1];
+        ids[0] = Thread.currentThread().getId();
+        for (int i = 0; i < workers.size(); i++) {
+            ids[i + 1] = workers.get(i).getId();
+        }
+        return ids;
+    }
+
+    // Fills result with the bytes each thread allocated so far (-1 for a thread that is gone). Allocates the same every call
+    private static void allocatedBytes(ThreadMXBean threads, long[] ids, long[] result) {
+        if (ids.length == 1) {
+            result[0] = threads.getCurrentThreadAllocatedBytes();
+            return;
+        }
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        System.arraycopy(bytes, 0, result, 0, ids.length);
+    }
+
+    // Flat dirt map with ore belts, two smelter lines and a small power grid, all feeding the core
+    private static Simulation buildFactory() {
+        Tile[][] map = new Tile[MAP_SIZE][MAP_SIZE];
+        for (int x = 0; x < MAP_SIZE; x++) {
+            for (int y = 0; y < MAP_SIZE; y++) {
+                map[x][y] = new Tile(x, y);
+            }
+        }
+
+        Simulation sim = new Simulation(map);
+        sim.spawnCore(); // Occupies 47..49 on both axes
+
+        // Raw ore belts into the west face of the core
+        ResourceType[] ores = ResourceType.values();
+        for (int r = 0; r < ores.length; r++) {
+            int y = 47 + r;
+            map[10][y].resource = ores[r];
+            place(sim, BuildingType.BASIC_DRILL, 10, y, Direction.EAST);
+
+            BuildingType belt = (r == ores.length - 1) ? BuildingType.FAST_CONVEYOR : BuildingType.BASIC_CONVEYOR;
+            for (int x = 11; x <= 46; x++) {
+                place(sim, belt, x, y, Direction.EAST);
+            }
+        }
+
+        // Copper smelter, output belt into the top of the core
+        map[19][70].resource = ResourceType.COPPER_ORE;
+        map[19][71].resource = ResourceType.COAL_ORE;
+        place(sim, BuildingType.BASIC_DRILL, 19, 70, Direction.EAST);
+        place(sim, BuildingType.BASIC_DRILL, 19, 71, Direction.EAST);
+        place(sim, BuildingType.SMELTER, 20, 70, Direction.EAST);
+        for (int x = 22; x <= 47; x++) {
+            place(sim, BuildingType.BASIC_CONVEYOR, x, 70, Direction.EAST);
+        }
+        for (int y = 70; y >= 50; y--) {
+            place(sim, BuildingType.BASIC_CONVEYOR, 48, y, Direction.SOUTH);
+        }
+
+        // Iron smelter, output belt into the bottom of the core
+        map[19][20].resource = ResourceType.IRON_ORE;
+        map[19][21].resource = ResourceType.COAL_ORE;
+        place(sim, BuildingType.BASIC_DRILL, 19, 20, Direction.EAST);
+        place(sim, BuildingType.BASIC_DRILL, 19, 21, Direction.EAST);
+        place(sim, BuildingType.INDUSTRIAL_SMELTER, 20, 20, Direction.EAST);
+        for (int x = 23; x <= 47; x++) {
+            place(sim, BuildingType.FAST_CONVEYOR, x, 20, Direction.EAST);
+        }
+        for (int y = 20; y <= 46; y++) {
+            place(sim, BuildingType.FAST_CONVEYOR, 48, y, Direction.NORTH);
+        }
+
+        // Large drill into the east face of the core
+        for (int x = 70; x <= 71; x++) {
+            for (int y = 47; y <= 48; y++) {
+                map[x][y].resource = ResourceType.COPPER_ORE;
+            }
+        }
+        place(sim, BuildingType.LARGE_DRILL, 70, 47, Direction.WEST);
+        for (int x = 69; x >= 50; x--) {
+            place(sim, BuildingType.BASIC_CONVEYOR, x, 47, Direction.WEST);
+        }
+
+        // Coal-fed generator charging a battery through a pole
+        map[69][70].resource = ResourceType.COAL_ORE;
+        place(sim, BuildingType.BASIC_DRILL, 69, 70, Direction.EAST);
+        place(sim, BuildingType.COAL_GENERATOR, 70, 70, Direction.EAST);
+        place(sim, BuildingType.POWER_POLE, 73, 70, Direction.NORTH);
+        place(sim, BuildingType.BATTERY, 75, 70, Direction.NORTH);
+
+        return sim;
+    }
+
+    private static void place(Simulation sim, BuildingType type, int x, int y, Direction facing) {
+        if (sim.placeBuilding(type, x, y, facing) == null) {
+            throw new IllegalStateException("Could not place " + type + " at " + x + ", " + y);
+        }
+    }
+}
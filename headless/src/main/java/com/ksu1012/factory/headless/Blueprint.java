@@ -0,0 +1,235 @@
+package com.ksu1012.factory.headless;
+
+import com.ksu1012.factory.BuildingType;
+import com.ksu1012.factory.Direction;
+import com.ksu1012.factory.ResourceType;
+import com.ksu1012.factory.Simulation;
+import com.ksu1012.factory.Tile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plain text layout for headless runs. One directive per line, {@code #} starts a comment, names are case-insensitive.
+ * <p>
+ * The first directive creates the world:
+ * <ul>
+ *   <li><b>world</b> {@code <width> <height> [seed]}: Generated by {@link com.ksu1012.factory.WorldGenerator}.</li>
+ *   <li><b>flat</b> {@code <width> <height>}: All dirt, no resources.</li>
+ * </ul>
+ * The rest edit it, in order:
+ * <ul>
+ *   <li><b>core</b>: Clears the center of the map and places the Core there.</li>
+ *   <li><b>resource</b> {@code <ResourceType> <x1> <y1> [<x2> <y2>]}: Puts ore on a tile or rectangle.</li>
+ *   <li><b>place</b> {@code <BuildingType> <x> <y> [<Direction>]}: Places one building (default facing NORTH).</li>
+ *   <li><b>line</b> {@code <BuildingType> <x1> <y1> <x2> <y2> [<Direction>]}: Places a straight row or column,
+ *   by default facing from the first tile towards the last.</li>
+ * </ul>
+ * Buildings are placed without paying their cost. Any invalid line or failed placement is an error.
+ */
+
+public class Blueprint {
+    private final String name;
+    private final List<String> lines;
+
+    // Resolved by build(), for reporting
+    private long seed = -1;
+    private boolean generated = false;
+
+    private Blueprint(String name, List<String> lines) {
+        this.name = name;
+        this.lines = lines;
+    }
+
+    public static Blueprint load(Path file) throws IOException {
+        return new Blueprint(file.getFileName().toString(), Files.readAllLines(file));
+    }
+
+    /**
+     * Creates the world and applies every directive.
+     *
+     * @param seedOverride Replaces the seed of a {@code world} directive, null to use the file's (or a random) seed.
+     */
+    public Simulation build(Long seedOverride) {
+        Simulation sim = null;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            String[] args = line.split("\\s+");
+            String directive = args[0].toLowerCase();
+
+            try {
+                if (sim == null) {
+                    sim = createWorld(directive, args, seedOverride);
+                } else {
+                    apply(sim, directive, args);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(name + " line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+
+        if (sim == null) {
+            throw new IllegalArgumentException(name + ": no world or flat directive");
+        }
+        return sim;
+    }
+
+    private Simulation createWorld(String directive, String[] args, Long seedOverride) {
+        switch (directive) {
+            case "world": {
+                expectArgs(args, 3, 4);
+                if (seedOverride != null) seed = seedOverride;
+                else if (args.length == 4) seed = parseLong(args[3]);
+                else seed = new Random().nextLong();
+
+                generated = true;
+                return new Simulation(parseInt(args[1]), parseInt(args[2]), seed);
+            }
+            case "flat": {
+                expectArgs(args, 3, 3);
+                int width = parseInt(args[1]);
+                int height = parseInt(args[2]);
+
+                Tile[][] map = new Tile[width][height];
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        map[x][y] = new Tile(x, y);
+                    }
+                }
+                return new Simulation(map);
+            }
+            default:
+                throw new IllegalArgumentException("expected world or flat first, got " + args[0]);
+        }
+    }
+
+    private void apply(Simulation sim, String directive, String[] args) {
+        switch (directive) {
+            case "core": {
+                expectArgs(args, 1, 1);
+                sim.spawnCore();
+                break;
+            }
+            case "resource": {
+                expectArgs(args, 4, 6);
+                if (args.length == 5) throw new IllegalArgumentException("resource needs one tile or two corners");
+                ResourceType resource = parseEnum(ResourceType.class, args[1]);
+                int x1 = parseInt(args[2]);
+                int y1 = parseInt(args[3]);
+                int x2 = (args.length == 6) ? parseInt(args[4]) : x1;
+                int y2 = (args.length == 6) ? parseInt(args[5]) : y1;
+
+                for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+                    for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                        tileAt(sim, x, y).resource = resource;
+                    }
+                }
+                break;
+            }
+            case "place": {
+                expectArgs(args, 4, 5);
+                BuildingType type = parseEnum(BuildingType.class, args[1]);
+                Direction facing = (args.length == 5) ? parseEnum(Direction.class, args[4]) : Direction.NORTH;
+                place(sim, type, parseInt(args[2]), parseInt(args[3]), facing);
+                break;
+            }
+            case "line": {
+                expectArgs(args, 6, 7);
+                BuildingType type = parseEnum(BuildingType.class, args[1]);
+                int x1 = parseInt(args[2]);
+                int y1 = parseInt(args[3]);
+                int x2 = parseInt(args[4]);
+                int y2 = parseInt(args[5]);
+                if (x1 != x2 && y1 != y2) throw new IllegalArgumentException("line must be horizontal or vertical");
+
+                int dx = Integer.signum(x2 - x1);
+                int dy = Integer.signum(y2 - y1);
+                Direction facing = (args.length == 7) ? parseEnum(Direction.class, args[6]) : directionOf(dx, dy);
+
+                // Step by the building size, so lines of multi-tile buildings don't overlap
+                int stepX = dx * type.def.width;
+                int stepY = dy * type.def.height;
+                int count = (dx != 0) ? Math.abs(x2 - x1) / type.def.width + 1
+                    : (dy != 0) ? Math.abs(y2 - y1) / type.def.height + 1 : 1;
+
+                for (int n = 0; n < count; n++) {
+                    place(sim, type, x1 + n * stepX, y1 + n * stepY, facing);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown directive " + args[0]);
+        }
+    }
+
+    private static void place(Simulation sim, BuildingType type, int x, int y, Direction facing) {
+        if (sim.placeBuilding(type, x, y, facing) == null) {
+            throw new IllegalArgumentException("cannot place " + type + " at " + x + ", " + y);
+        }
+    }
+
+    private static Tile tileAt(Simulation sim, int x, int y) {
+        if (x < 0 || y < 0 || x >= sim.getWidth() || y >= sim.getHeight()) {
+            throw new IllegalArgumentException("tile " + x + ", " + y + " is outside the map");
+        }
+        return sim.getMap()[x][y];
+    }
+
+    private static Direction directionOf(int dx, int dy) {
+        for (Direction d : Direction.values()) {
+            if (d.dx == dx && d.dy == dy) return d;
+        }
+        return Direction.NORTH; // Single tile line
+    }
+
+    // --- PARSING ---
+
+    private static void expectArgs(String[] args, int min, int max) {
+        if (args.length < min || args.length > max) {
+            throw new IllegalArgumentException(args[0] + " takes " + (min - 1)
+                + (max > min ? " to " + (max - 1) : "") + " arguments, got " + (args.length - 1));
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + value);
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: " + value);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown " + type.getSimpleName() + " " + value);
+        }
+    }
+
+    // --- GETTERS ---
+
+    public String getName() { return name; }
+
+    // True if the world came from the generator (the seed is then meaningful)
+    public boolean isGenerated() { return generated; }
+
+    public long getSeed() { return seed; }
+}
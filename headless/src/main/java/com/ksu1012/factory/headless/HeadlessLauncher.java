@@ -0,0 +1,183 @@
+package com.ksu1012.factory.headless;
+
+import com.ksu1012.factory.Building;
+import com.ksu1012.factory.FlowSolver;
+import com.ksu1012.factory.GameState;
+import com.ksu1012.factory.ItemType;
+import com.ksu1012.factory.Simulation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs a {@link Blueprint} without a window and reports throughput.
+ * <p>
+ * Usage: {@code factory-headless <blueprint> [--ticks N] [--seed S] [--parallel] [--solve] [--fast-forward] [--csv]}
+ * <ul>
+ *   <li><b>--ticks:</b> Ticks to run back to back (default 72000, one hour of game time).</li>
+ *   <li><b>--seed:</b> Overrides the seed of a generated world.</li>
+ *   <li><b>--parallel:</b> Updates chunks on all cores (same results as serial).</li>
+ *   <li><b>--solve:</b> Also reports the rates a {@link FlowSolver} predicts before the run, and the bottlenecks.</li>
+ *   <li><b>--fast-forward:</b> Runs the ticks with {@link Simulation#fastForward(int)}, which skips settled regions
+ *   (approximate).</li>
+ *   <li><b>--csv:</b> Prints a header and one result row instead of the readable report, for collecting many runs.</li>
+ * </ul>
+ * Production is measured as the items delivered to the Core, per simulated minute.
+ */
+
+public class HeadlessLauncher {
+    private static final int DEFAULT_TICKS = 72000;
+    private static final int MAX_BOTTLENECKS_SHOWN = 10;
+
+    public static void main(String[] args) {
+        Path file = null;
+        int ticks = DEFAULT_TICKS;
+        Long seed = null;
+        boolean parallel = false;
+        boolean csv = false;
+        boolean solve = false;
+        boolean fastForward = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--ticks": ticks = Integer.parseInt(value(args, ++i)); break;
+                    case "--seed": seed = Long.parseLong(value(args, ++i)); break;
+                    case "--parallel": parallel = true; break;
+                    case "--csv": csv = true; break;
+                    case "--solve": solve = true; break;
+                    case "--fast-forward": fastForward = true; break;
+                    default:
+                        if (args[i].startsWith("--") || file != null) throw new IllegalArgumentException("unexpected argument " + args[i]);
+                        file = Path.of(args[i]);
+                }
+            }
+            if (file == null) throw new IllegalArgumentException("no blueprint given");
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println("Usage: factory-headless <blueprint> [--ticks N] [--seed S] [--parallel] [--solve] [--fast-forward] [--csv]");
+            System.exit(2);
+            return;
+        }
+
+        GameState.instance = new GameState();
+
+        // World generation and drills log to stdout, which would end up in the CSV
+        PrintStream out = System.out;
+        if (csv) System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Blueprint blueprint;
+        Simulation sim;
+        try {
+            blueprint = Blueprint.load(file);
+            sim = blueprint.build(seed);
+        } catch (IOException e) {
+            System.err.println("Could not read " + file + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid blueprint: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        System.setOut(out);
+        sim.setParallel(parallel);
+
+        int[] before = new int[ItemType.COUNT];
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            before[i] = GameState.instance.getResource(ItemType.get(i));
+        }
+
+        FlowSolver solver = solve ? new FlowSolver(sim) : null;
+
+        long start = System.nanoTime();
+        int parkedRegions = 0;
+        if (fastForward) {
+            parkedRegions = sim.fastForward(ticks);
+        } else {
+            sim.runTicks(ticks);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        sim.dispose();
+
+        int[] delivered = new int[ItemType.COUNT];
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            delivered[i] = GameState.instance.getResource(ItemType.get(i)) - before[i];
+        }
+
+        if (csv) {
+            printCsv(blueprint, sim, ticks, seconds, delivered, solver);
+        } else {
+            printReport(blueprint, sim, ticks, seconds, delivered, solver);
+            if (fastForward) System.out.println("Fast-forward: parked " + parkedRegions + " region(s)");
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        return args[i];
+    }
+
+    private static void printReport(Blueprint blueprint, Simulation sim, int ticks, double seconds, int[] delivered, FlowSolver solver) {
+        double simMinutes = ticks * Simulation.TICK_DELTA / 60.0;
+
+        System.out.println("Blueprint: " + blueprint.getName() + " (" + sim.getWidth() + "x" + sim.getHeight()
+            + (blueprint.isGenerated() ? ", seed " + blueprint.getSeed() : ", flat") + ")");
+        System.out.println("Buildings: " + sim.getBuildings().size() + (sim.isParallel() ? ", parallel" : ", serial"));
+        System.out.println(String.format(Locale.ROOT, "Ran %d ticks (%.1f simulated minutes) in %.2f s: %.0f ticks/s, %.1f us/tick",
+            ticks, simMinutes, seconds, ticks / seconds, seconds * 1e6 / ticks));
+
+        System.out.println("Delivered to core:");
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            System.out.println(String.format(Locale.ROOT, "  %-10s %8d  (%.1f/min)",
+                ItemType.get(i).displayName, delivered[i], delivered[i] / simMinutes));
+        }
+
+        if (solver == null) return;
+        System.out.println(String.format(Locale.ROOT, "Predicted (solved in %.1f ms, %d iterations, %d regions):",
+            solver.getSolveNanos() / 1e6, solver.getIterations(), solver.getRegionCount()));
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            System.out.println(String.format(Locale.ROOT, "  %-10s %.1f/min",
+                ItemType.get(i).displayName, solver.getDeliveryRate(ItemType.get(i)) * 60));
+        }
+
+        List<Building> bottlenecks = solver.getBottlenecks();
+        System.out.println("Bottlenecks: " + bottlenecks.size());
+        for (int i = 0; i < Math.min(bottlenecks.size(), MAX_BOTTLENECKS_SHOWN); i++) {
+            Building b = bottlenecks.get(i);
+            System.out.println("  " + b.getClass().getSimpleName() + " at " + b.x + "," + b.y);
+        }
+    }
+
+    private static void printCsv(Blueprint blueprint, Simulation sim, int ticks, double seconds, int[] delivered, FlowSolver solver) {
+        double simMinutes = ticks * Simulation.TICK_DELTA / 60.0;
+
+        StringBuilder header = new StringBuilder("blueprint,seed,buildings,ticks,seconds,ticks_per_second");
+        StringBuilder row = new StringBuilder();
+        row.append(blueprint.getName())
+            .append(',').append(blueprint.isGenerated() ? String.valueOf(blueprint.getSeed()) : "")
+            .append(',').append(sim.getBuildings().size())
+            .append(',').append(ticks)
+            .append(',').append(String.format(Locale.ROOT, "%.3f", seconds))
+            .append(',').append(String.format(Locale.ROOT, "%.1f", ticks / seconds));
+
+        for (int i = 0; i < ItemType.COUNT; i++) {
+            header.append(',').append(ItemType.get(i).name().toLowerCase()).append("_per_min");
+            row.append(',').append(String.format(Locale.ROOT, "%.2f", delivered[i] / simMinutes));
+        }
+        if (solver != null) {
+            for (int i = 0; i < ItemType.COUNT; i++) {
+                header.append(',').append("predicted_").append(ItemType.get(i).name().toLowerCase()).append("_per_min");
+                row.append(',').append(String.format(Locale.ROOT, "%.2f", solver.getDeliveryRate(ItemType.get(i)) * 60));
+            }
+        }
+
+        System.out.println(header);
+        System.out.println(row);
+    }
+}